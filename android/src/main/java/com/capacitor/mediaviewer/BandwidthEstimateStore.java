@@ -0,0 +1,88 @@
+package com.capacitor.mediaviewer;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import androidx.media3.common.C;
+import androidx.media3.common.util.NetworkTypeObserver;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.upstream.BandwidthMeter;
+import androidx.media3.exoplayer.upstream.DefaultBandwidthMeter;
+
+/**
+ * Process-wide bandwidth meter for every player the viewer builds, warm-started from the
+ * estimates of earlier sessions. The latest estimate is saved per network type (Wi-Fi, 4G, ...)
+ * while media downloads and when the viewer closes, so "Auto" quality picks its first variant
+ * from what this device actually measured on that kind of network instead of a country default.
+ */
+@UnstableApi
+public final class BandwidthEstimateStore {
+
+    private static final String PREFS_NAME = "CapacitorMediaViewerBandwidth";
+    private static final String KEY_PREFIX = "bitrate_";
+    private static final long SAVE_INTERVAL_MS = 10000;
+    // Every network type DefaultBandwidthMeter keeps a separate initial estimate for
+    private static final int[] NETWORK_TYPES = {
+        C.NETWORK_TYPE_WIFI,
+        C.NETWORK_TYPE_ETHERNET,
+        C.NETWORK_TYPE_2G,
+        C.NETWORK_TYPE_3G,
+        C.NETWORK_TYPE_4G,
+        C.NETWORK_TYPE_5G_NSA,
+        C.NETWORK_TYPE_5G_SA
+    };
+
+    private static DefaultBandwidthMeter meter;
+    private static SharedPreferences prefs;
+    private static long lastSaveMs;
+
+    private BandwidthEstimateStore() {}
+
+    public static synchronized DefaultBandwidthMeter getMeter(Context context) {
+        if (meter == null) {
+            Context appContext = context.getApplicationContext();
+            prefs = appContext.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+            DefaultBandwidthMeter.Builder builder = new DefaultBandwidthMeter.Builder(appContext);
+            for (int networkType : NETWORK_TYPES) {
+                long saved = prefs.getLong(KEY_PREFIX + networkType, 0);
+                if (saved > 0) {
+                    builder.setInitialBitrateEstimate(networkType, saved);
+                }
+            }
+            meter = builder.build();
+            BandwidthMeter.EventListener saveOnSample = (elapsedMs, bytesTransferred, bitrateEstimate) -> {
+                if (SystemClock.elapsedRealtime() - lastSaveMs >= SAVE_INTERVAL_MS) {
+                    save(appContext);
+                }
+            };
+            meter.addEventListener(new Handler(Looper.getMainLooper()), saveOnSample);
+        }
+        return meter;
+    }
+
+    /**
+     * Store the current estimate for the current network type.
+     */
+    public static synchronized void save(Context context) {
+        if (meter == null) {
+            return;
+        }
+        lastSaveMs = SystemClock.elapsedRealtime();
+        int networkType = NetworkTypeObserver.getInstance(context).getNetworkType();
+        if (!isPersisted(networkType)) {
+            return;
+        }
+        prefs.edit().putLong(KEY_PREFIX + networkType, meter.getBitrateEstimate()).apply();
+    }
+
+    private static boolean isPersisted(int networkType) {
+        for (int type : NETWORK_TYPES) {
+            if (type == networkType) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
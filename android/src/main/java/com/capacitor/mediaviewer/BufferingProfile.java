@@ -0,0 +1,95 @@
+package com.capacitor.mediaviewer;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
+
+/**
+ * Buffer sizes for the viewer's players, from a named profile with optional overrides.
+ * "default" matches DefaultLoadControl; "fast-start" starts playback after half a second of
+ * media and keeps less ahead, for short clips and stories; "smooth" keeps a long buffer plus a
+ * back buffer for quick rewinds on long streams; "low-memory" caps the buffer by size as well
+ * as duration for budget devices.
+ */
+@UnstableApi
+public class BufferingProfile {
+
+    public static final String DEFAULT = "default";
+    public static final String FAST_START = "fast-start";
+    public static final String SMOOTH = "smooth";
+    public static final String LOW_MEMORY = "low-memory";
+
+    public String name = DEFAULT;
+    // Playback keeps loading until at least minBufferMs is buffered and stops at maxBufferMs
+    public int minBufferMs = DefaultLoadControl.DEFAULT_MIN_BUFFER_MS;
+    public int maxBufferMs = DefaultLoadControl.DEFAULT_MAX_BUFFER_MS;
+    // Media needed before playback starts, and before it resumes after a stall
+    public int bufferForPlaybackMs = DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_MS;
+    public int bufferForPlaybackAfterRebufferMs = DefaultLoadControl.DEFAULT_BUFFER_FOR_PLAYBACK_AFTER_REBUFFER_MS;
+    // Already played media kept for seeking back
+    public int backBufferMs = DefaultLoadControl.DEFAULT_BACK_BUFFER_DURATION_MS;
+    // Buffer size cap in bytes, C.LENGTH_UNSET to derive it from the selected tracks
+    public int targetBufferBytes = C.LENGTH_UNSET;
+
+    /**
+     * Profile for {@code name}, or null if there is no such profile.
+     */
+    public static BufferingProfile forName(String name) {
+        BufferingProfile profile = new BufferingProfile();
+        if (name == null || DEFAULT.equals(name)) {
+            return profile;
+        }
+        profile.name = name;
+        switch (name) {
+            case FAST_START:
+                profile.minBufferMs = 15000;
+                profile.maxBufferMs = 30000;
+                profile.bufferForPlaybackMs = 500;
+                profile.bufferForPlaybackAfterRebufferMs = 2000;
+                return profile;
+            case SMOOTH:
+                profile.minBufferMs = 30000;
+                profile.maxBufferMs = 60000;
+                profile.bufferForPlaybackMs = 2500;
+                profile.bufferForPlaybackAfterRebufferMs = 5000;
+                profile.backBufferMs = 15000;
+                return profile;
+            case LOW_MEMORY:
+                profile.minBufferMs = 5000;
+                profile.maxBufferMs = 15000;
+                profile.bufferForPlaybackMs = 1000;
+                profile.bufferForPlaybackAfterRebufferMs = 2500;
+                profile.targetBufferBytes = 8 * 1024 * 1024;
+                return profile;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Bring overridden values back into the ranges DefaultLoadControl accepts.
+     */
+    public void normalize() {
+        bufferForPlaybackMs = Math.max(0, bufferForPlaybackMs);
+        bufferForPlaybackAfterRebufferMs = Math.max(0, bufferForPlaybackAfterRebufferMs);
+        minBufferMs = Math.max(minBufferMs, Math.max(bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs));
+        maxBufferMs = Math.max(maxBufferMs, minBufferMs);
+        backBufferMs = Math.max(0, backBufferMs);
+        if (targetBufferBytes <= 0) {
+            targetBufferBytes = C.LENGTH_UNSET;
+        }
+    }
+
+    /**
+     * A new load control for one player. Each player needs its own.
+     */
+    public DefaultLoadControl createLoadControl() {
+        return new DefaultLoadControl.Builder()
+            .setBufferDurationsMs(minBufferMs, maxBufferMs, bufferForPlaybackMs, bufferForPlaybackAfterRebufferMs)
+            .setTargetBufferBytes(targetBufferBytes)
+            .setPrioritizeTimeOverSizeThresholds(DefaultLoadControl.DEFAULT_PRIORITIZE_TIME_OVER_SIZE_THRESHOLDS)
+            // Seeking back into the back buffer needs it to start at a keyframe
+            .setBackBuffer(backBufferMs, backBufferMs > 0)
+            .build();
+    }
+}
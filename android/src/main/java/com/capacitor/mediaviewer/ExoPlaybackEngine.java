@@ -0,0 +1,415 @@
+package com.capacitor.mediaviewer;
+
+import android.os.SystemClock;
+import android.util.Log;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.Player;
+import androidx.media3.common.TrackSelectionOverride;
+import androidx.media3.common.TrackSelectionParameters;
+import androidx.media3.common.Tracks;
+import androidx.media3.common.VideoSize;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DecoderReuseEvaluation;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import androidx.media3.exoplayer.source.MediaLoadData;
+import java.util.List;
+
+/**
+ * {@link PlaybackEngine} on ExoPlayer. Switches quality on the running player through track
+ * selection and follows adaptive switches through an {@link AnalyticsListener}.
+ *
+ * The pool and the video output are passed in, so with an {@link ExoPlayerPool} whose
+ * {@link ExoPlayerPool.PlayerFactory} supplies test players, item switches and quality changes
+ * can be driven off-device.
+ */
+@UnstableApi
+public class ExoPlaybackEngine implements PlaybackEngine {
+
+    private static final String TAG = "ExoPlaybackEngine";
+
+    // A quality switch that hasn't shown up by then is not measured
+    private static final long QUALITY_SWITCH_TIMEOUT_MS = 30000;
+
+    private final PlayerPool pool;
+    private final PlaybackMetricsCollector metrics;
+    private final Listener listener;
+    private VideoOutput videoOutput;
+    private ExoPlayer player;
+    private Player.Listener playerListener;
+    private float playbackSpeed = 1.0f;
+
+    private String currentQuality = AUTO_QUALITY;
+    // The variant actually playing while Auto is selected
+    private String actualPlayingQuality;
+    private List<QualityVariant> qualityVariants;
+    private List<QualityVariant> qualityVariantIndexSource;
+    private QualityVariantIndex qualityVariantIndex;
+    // Pending setQuality() latency measurement: start time (0 when none) and the pinned format
+    private long qualitySwitchStartMs = 0;
+    private int qualitySwitchTargetHeight = Format.NO_VALUE;
+    private int qualitySwitchTargetBitrate = Format.NO_VALUE;
+
+    // Follows adaptive quality switches as the decoder sees them instead of polling the tracks
+    private final AnalyticsListener qualityAnalyticsListener = new AnalyticsListener() {
+        @Override
+        public void onVideoInputFormatChanged(
+            @NonNull EventTime eventTime,
+            @NonNull Format format,
+            @Nullable DecoderReuseEvaluation decoderReuseEvaluation
+        ) {
+            updateAutoQuality(format.width, format.height);
+            finishQualitySwitchMeasurement(format);
+        }
+
+        @Override
+        public void onDownstreamFormatChanged(@NonNull EventTime eventTime, @NonNull MediaLoadData mediaLoadData) {
+            Format format = mediaLoadData.trackFormat;
+            if (format == null) {
+                return;
+            }
+            if (mediaLoadData.trackType == C.TRACK_TYPE_VIDEO) {
+                updateAutoQuality(format.width, format.height);
+            }
+            // Muxed HLS variants report the default track type
+            if (mediaLoadData.trackType == C.TRACK_TYPE_VIDEO || (mediaLoadData.trackType == C.TRACK_TYPE_DEFAULT && format.height > 0)) {
+                finishQualitySwitchMeasurement(format);
+            }
+        }
+    };
+
+    public ExoPlaybackEngine(PlayerPool pool, PlaybackMetricsCollector metrics, Listener listener) {
+        this.pool = pool;
+        this.metrics = metrics;
+        this.listener = listener;
+    }
+
+    @Override
+    public void setVideoOutput(@Nullable VideoOutput output) {
+        videoOutput = output;
+    }
+
+    @Override
+    @Nullable
+    public ExoPlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * Uses a warm player already prepared for {@code path} when the pool has one; its earlier
+     * events are replayed to {@code playerListener}.
+     */
+    @Override
+    public ExoPlayer start(String path, long startPositionMs, boolean playWhenReady, Player.Listener playerListener) {
+        stop();
+
+        player = pool.acquire(path);
+        if (player == null) {
+            return null;
+        }
+        boolean preloaded = ExoPlayerPool.isPreparedFor(player, path);
+        if (preloaded) {
+            Log.d(TAG, "Using preloaded player for " + path);
+        }
+        listener.onPlayerChanged(player);
+
+        this.playerListener = playerListener;
+        player.addListener(playerListener);
+        player.addAnalyticsListener(qualityAnalyticsListener);
+        player.addAnalyticsListener(metrics);
+        if (videoOutput != null) {
+            videoOutput.attach(player);
+        }
+
+        player.setPlaybackSpeed(playbackSpeed);
+        if (!preloaded) {
+            player.setMediaItem(ExoPlayerPool.mediaItemFor(path));
+            player.prepare();
+        }
+        if (startPositionMs > 0) {
+            player.seekTo(startPositionMs);
+        }
+        player.setPlayWhenReady(playWhenReady);
+
+        if (preloaded) {
+            // Events from the preload happened before the listener was attached - replay them
+            playerListener.onTimelineChanged(player.getCurrentTimeline(), Player.TIMELINE_CHANGE_REASON_PLAYLIST_CHANGED);
+            playerListener.onPlaybackStateChanged(player.getPlaybackState());
+        }
+        return player;
+    }
+
+    @Override
+    public void stop() {
+        if (player == null) {
+            return;
+        }
+        if (playerListener != null) {
+            player.removeListener(playerListener);
+            playerListener = null;
+        }
+        player.removeAnalyticsListener(qualityAnalyticsListener);
+        player.removeAnalyticsListener(metrics);
+        if (videoOutput != null) {
+            videoOutput.detach(player);
+        }
+        pool.recycle(player);
+        player = null;
+        listener.onPlayerChanged(null);
+    }
+
+    @Override
+    public void play() {
+        if (player != null) {
+            player.setPlayWhenReady(true);
+        }
+    }
+
+    @Override
+    public void pause() {
+        if (player != null) {
+            player.setPlayWhenReady(false);
+        }
+    }
+
+    @Override
+    public void seek(long timeMs) {
+        if (player != null) {
+            player.seekTo(timeMs);
+        }
+    }
+
+    @Override
+    public void setPlaybackSpeed(float speed) {
+        playbackSpeed = speed;
+        if (player != null) {
+            player.setPlaybackSpeed(speed);
+        }
+    }
+
+    @Override
+    public float getPlaybackSpeed() {
+        return playbackSpeed;
+    }
+
+    @Override
+    public void preload(String path, long durationMs, long maxBytes) {
+        pool.preload(path, durationMs, maxBytes);
+    }
+
+    @Override
+    public void cancelPreload() {
+        pool.cancelPreload();
+    }
+
+    @Override
+    public void release() {
+        stop();
+        pool.release();
+    }
+
+    @Override
+    public PlaybackState getPlaybackState() {
+        PlaybackState state = new PlaybackState();
+        if (player != null) {
+            state.isPlaying = player.isPlaying();
+            state.currentTime = player.getCurrentPosition() / 1000.0; // Convert to seconds
+            state.duration = player.getDuration() / 1000.0; // Convert to seconds
+            state.currentQuality = currentQuality;
+        }
+        return state;
+    }
+
+    @Override
+    public void emitPlaybackState() {
+        if (player != null) {
+            listener.onPlaybackStateChanged(getPlaybackState());
+        }
+    }
+
+    @Override
+    public String getCurrentQuality() {
+        return currentQuality;
+    }
+
+    @Override
+    public void resetQuality(@Nullable List<QualityVariant> variants) {
+        currentQuality = AUTO_QUALITY;
+        actualPlayingQuality = null;
+        // A switch still pending for the previous video is not going to finish
+        qualitySwitchStartMs = 0;
+        qualityVariants = variants;
+    }
+
+    @Override
+    public void setQualityVariants(@Nullable List<QualityVariant> variants) {
+        qualityVariants = variants;
+    }
+
+    /**
+     * Switches to a specific variant are timed until the player decodes it; switches to Auto
+     * have no target to wait for and are not timed.
+     */
+    @Override
+    public boolean selectQuality(String path, @Nullable QualityVariant variant) {
+        if (variant == null) {
+            currentQuality = AUTO_QUALITY;
+            actualPlayingQuality = null; // Reset, will be detected when playback starts
+            qualitySwitchStartMs = 0;
+            if (switchQualityInPlace(path, null)) {
+                updateAutoQuality();
+                return true;
+            }
+            return false;
+        }
+
+        currentQuality = variant.label;
+        actualPlayingQuality = variant.label;
+        if (switchQualityInPlace(path, variant)) {
+            return true;
+        }
+        // The caller plays the variant's own playlist, whose format carries no bitrate
+        beginQualitySwitchMeasurement(variant.height, Format.NO_VALUE);
+        return false;
+    }
+
+    @Override
+    public void updateAutoQuality() {
+        if (player == null) {
+            return;
+        }
+        // Format of the video currently being decoded, falling back to the rendered size
+        Format format = player.getVideoFormat();
+        if (format != null && format.width > 0 && format.height > 0) {
+            updateAutoQuality(format.width, format.height);
+        } else {
+            VideoSize videoSize = player.getVideoSize();
+            updateAutoQuality(videoSize.width, videoSize.height);
+        }
+    }
+
+    private void updateAutoQuality(int width, int height) {
+        if (!AUTO_QUALITY.equals(currentQuality) || width <= 0 || height <= 0) {
+            return;
+        }
+        if (qualityVariants == null || qualityVariants.isEmpty()) {
+            return;
+        }
+
+        // The index is built once per variant list and matched without allocating
+        if (qualityVariants != qualityVariantIndexSource) {
+            qualityVariantIndex = QualityVariantIndex.of(qualityVariants);
+            qualityVariantIndexSource = qualityVariants;
+        }
+        String detectedQuality = qualityVariantIndex.match(width, height);
+        if (detectedQuality == null) {
+            Log.d(TAG, "Could not detect quality for resolution: " + width + "x" + height);
+        } else if (!detectedQuality.equals(actualPlayingQuality)) {
+            String oldQuality = actualPlayingQuality != null ? actualPlayingQuality : "none";
+            actualPlayingQuality = detectedQuality;
+            Log.d(TAG, "Auto quality changed: " + oldQuality + " -> " + detectedQuality + " (Resolution: " + width + "x" + height + ")");
+        }
+    }
+
+    /**
+     * Switch quality on the running player through track selection: pin the video track matching
+     * {@code variant}, or clear the override for Auto. Buffered media keeps playing and the new
+     * rendition takes over at a segment boundary, so there is no surface reset or rebuffer.
+     * Returns false if the player isn't playing the item's multivariant playlist or has no matching
+     * track.
+     */
+    private boolean switchQualityInPlace(String path, QualityVariant variant) {
+        if (!ExoPlayerPool.isPreparedFor(player, path)) {
+            // Playing a single variant URL (or nothing) - there are no other tracks to select
+            return false;
+        }
+
+        TrackSelectionParameters.Builder parameters = player.getTrackSelectionParameters().buildUpon();
+        if (variant == null) {
+            player.setTrackSelectionParameters(parameters.clearOverridesOfType(C.TRACK_TYPE_VIDEO).build());
+            Log.d(TAG, "Switched to Auto quality in place");
+            return true;
+        }
+
+        Tracks.Group bestGroup = null;
+        int bestTrack = -1;
+        long bestBitrateDelta = Long.MAX_VALUE;
+        for (Tracks.Group group : player.getCurrentTracks().getGroups()) {
+            if (group.getType() != C.TRACK_TYPE_VIDEO) {
+                continue;
+            }
+            for (int i = 0; i < group.length; i++) {
+                if (!group.isTrackSupported(i)) {
+                    continue;
+                }
+                Format format = group.getTrackFormat(i);
+                // BANDWIDTH identifies the variant exactly; fall back to the closest bitrate at the same height
+                boolean sameBandwidth = variant.bandwidth > 0 && format.bitrate == variant.bandwidth;
+                boolean sameHeight = variant.height > 0 && format.height == variant.height;
+                if (!sameBandwidth && !sameHeight) {
+                    continue;
+                }
+                long bitrateDelta = sameBandwidth ? -1 : Math.abs((long) format.bitrate - variant.bandwidth);
+                if (bitrateDelta < bestBitrateDelta) {
+                    bestGroup = group;
+                    bestTrack = i;
+                    bestBitrateDelta = bitrateDelta;
+                }
+            }
+        }
+        if (bestGroup == null) {
+            Log.d(TAG, "No video track matches " + variant.label + ", rebuilding player");
+            return false;
+        }
+
+        Format target = bestGroup.getTrackFormat(bestTrack);
+        beginQualitySwitchMeasurement(target.height, target.bitrate);
+        player.setTrackSelectionParameters(
+            parameters.setOverrideForType(new TrackSelectionOverride(bestGroup.getMediaTrackGroup(), bestTrack)).build()
+        );
+        Log.d(TAG, "Switched to " + variant.label + " in place");
+        // Pinning the track that is already playing changes nothing the listener would see
+        Format playing = player.getVideoFormat();
+        if (playing != null) {
+            finishQualitySwitchMeasurement(playing);
+        }
+        return true;
+    }
+
+    // Quality switch latency: from selectQuality() until the player decodes the pinned format
+    private void beginQualitySwitchMeasurement(int targetHeight, int targetBitrate) {
+        qualitySwitchStartMs = SystemClock.elapsedRealtime();
+        qualitySwitchTargetHeight = targetHeight;
+        qualitySwitchTargetBitrate = targetBitrate;
+    }
+
+    private void finishQualitySwitchMeasurement(Format format) {
+        if (qualitySwitchStartMs == 0) {
+            return;
+        }
+        long latencyMs = SystemClock.elapsedRealtime() - qualitySwitchStartMs;
+        if (latencyMs > QUALITY_SWITCH_TIMEOUT_MS) {
+            // Never arrived, e.g. the track was unsupported after all - don't report a bogus time
+            Log.d(TAG, "Dropping quality switch measurement after " + latencyMs + " ms");
+            qualitySwitchStartMs = 0;
+            return;
+        }
+        if (!isQualitySwitchTarget(format)) {
+            return;
+        }
+        Log.d(TAG, "Quality switch to " + currentQuality + " reached after " + latencyMs + " ms");
+        metrics.recordQualitySwitch(latencyMs);
+        qualitySwitchStartMs = 0;
+    }
+
+    private boolean isQualitySwitchTarget(Format format) {
+        // Variants of the same height differ only in bitrate, so compare that whenever both are known
+        if (qualitySwitchTargetBitrate != Format.NO_VALUE && format.bitrate != Format.NO_VALUE) {
+            return format.bitrate == qualitySwitchTargetBitrate;
+        }
+        return qualitySwitchTargetHeight > 0 && format.height == qualitySwitchTargetHeight;
+    }
+}
@@ -0,0 +1,291 @@
+package com.capacitor.mediaviewer;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.media3.common.MediaItem;
+import androidx.media3.common.Player;
+import androidx.media3.common.TrackSelectionParameters;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.source.DefaultMediaSourceFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps at most one active and one warm ExoPlayer per viewer.
+ * A recycled player is only paused and detached, so the next item can reuse its playback
+ * thread, renderers and (when formats allow) decoders by swapping the media item instead
+ * of building a new player. A warm player that is not reused in time is stopped to free
+ * its buffers and codecs, but the instance itself is kept until {@link #release()}.
+ *
+ * The warm player can also preload a neighbouring item up to a small buffer budget, so
+ * {@link #acquire(String)} hands out a player that is already prepared for it.
+ *
+ * Players come from a {@link PlayerFactory}, so the pool can be driven with test players
+ * (e.g. media3's TestExoPlayerBuilder) instead of real decoders.
+ */
+@UnstableApi
+public class ExoPlayerPool implements PlayerPool {
+
+    private static final String TAG = "ExoPlayerPool";
+    private static final long WARM_IDLE_STOP_MS = 10000;
+    private static final int MAX_WARM_PLAYERS = 1;
+
+    public interface PlayerFactory {
+        /**
+         * Build a player that buffers according to {@code loadControl}.
+         */
+        ExoPlayer create(Context context, LoadControl loadControl);
+    }
+
+    /**
+     * Real players sharing the persisted bandwidth estimate and the media cache.
+     */
+    public static final PlayerFactory DEFAULT_PLAYER_FACTORY = (context, loadControl) -> {
+        ExoPlayer.Builder builder = new ExoPlayer.Builder(context)
+            .setLoadControl(loadControl)
+            // One estimate for all players, starting from what earlier sessions measured
+            .setBandwidthMeter(BandwidthEstimateStore.getMeter(context));
+        MediaCache mediaCache = MediaCache.getInstance();
+        if (mediaCache != null) {
+            builder.setMediaSourceFactory(new DefaultMediaSourceFactory(mediaCache.getDataSourceFactory()));
+        }
+        return builder.build();
+    };
+
+    private final Context context;
+    private final BufferingProfile buffering;
+    private final PlayerFactory playerFactory;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Map<ExoPlayer, PreloadLoadControl> loadControls = new HashMap<>();
+    private ExoPlayer active;
+    // Usually a single player; briefly two between recycling the old item and acquiring the next
+    private final List<ExoPlayer> warm = new ArrayList<>();
+    private ExoPlayer preloading;
+    // Set by release(); the pool builds no more players after that
+    private boolean released;
+    private final Runnable stopIdleWarmPlayers = () -> {
+        for (ExoPlayer player : warm) {
+            if (player != preloading) {
+                Log.d(TAG, "Stopping idle warm player");
+                player.stop();
+                player.clearMediaItems();
+            }
+        }
+    };
+
+    public ExoPlayerPool(Context context) {
+        this(context, BufferingProfile.forName(BufferingProfile.DEFAULT));
+    }
+
+    public ExoPlayerPool(Context context, BufferingProfile buffering) {
+        this(context, buffering, DEFAULT_PLAYER_FACTORY);
+    }
+
+    public ExoPlayerPool(Context context, BufferingProfile buffering, PlayerFactory playerFactory) {
+        this.context = context.getApplicationContext();
+        this.buffering = buffering;
+        this.playerFactory = playerFactory;
+    }
+
+    /**
+     * Media item for a viewer path. The path doubles as media id so a warm player can be
+     * matched against the item it already holds.
+     */
+    public static MediaItem mediaItemFor(String path) {
+        return new MediaItem.Builder().setUri(path).setMediaId(path).build();
+    }
+
+    /**
+     * Whether the player already holds (and has started preparing) the item for {@code path}.
+     */
+    public static boolean isPreparedFor(ExoPlayer player, String path) {
+        if (player == null || path == null || player.getPlaybackState() == Player.STATE_IDLE) {
+            return false;
+        }
+        MediaItem current = player.getCurrentMediaItem();
+        return current != null && path.equals(current.mediaId);
+    }
+
+    /**
+     * Returns the player to use for the item at {@code path}: a warm player already prepared
+     * for it, any other warm player, or a newly built one. Returns null once the pool has
+     * been released.
+     */
+    @Override
+    public ExoPlayer acquire(String path) {
+        if (released) {
+            Log.w(TAG, "acquire() after release()");
+            return null;
+        }
+        if (active != null) {
+            // Caller forgot to recycle - don't leak the previous player
+            recycle(active);
+        }
+
+        handler.removeCallbacks(stopIdleWarmPlayers);
+        ExoPlayer player = null;
+        for (ExoPlayer candidate : warm) {
+            if (isPreparedFor(candidate, path)) {
+                player = candidate;
+                break;
+            }
+        }
+        if (player == null) {
+            for (ExoPlayer candidate : warm) {
+                // Keep a running preload for later if another player is free
+                if (player == null || player == preloading) {
+                    player = candidate;
+                }
+            }
+        }
+
+        if (player != null) {
+            warm.remove(player);
+            resetForReuse(player);
+            if (player == preloading) {
+                preloading = null;
+            }
+        } else {
+            player = build();
+        }
+        loadControls.get(player).clearPreloadBudget();
+        active = player;
+        trimWarmPlayers();
+        return active;
+    }
+
+    /**
+     * Hand a player back to the pool. The caller must have removed its own listeners.
+     */
+    @Override
+    public void recycle(ExoPlayer player) {
+        if (player == null) {
+            return;
+        }
+        if (player == active) {
+            active = null;
+        }
+        if (released) {
+            // Nothing to keep it warm for
+            player.release();
+            return;
+        }
+
+        player.setPlayWhenReady(false);
+        player.clearVideoSurface();
+        // Keep what is buffered, but don't download any more of an item nobody is watching
+        loadControls.get(player).setPreloadBudget(0, 0);
+
+        if (!warm.contains(player)) {
+            warm.add(player);
+        }
+        handler.removeCallbacks(stopIdleWarmPlayers);
+        handler.postDelayed(stopIdleWarmPlayers, WARM_IDLE_STOP_MS);
+    }
+
+    /**
+     * Prepare {@code path} on a warm player, buffering at most {@code durationMs} of media or
+     * {@code maxBytes} of data. Replaces any other preload in progress.
+     */
+    @Override
+    public void preload(String path, long durationMs, long maxBytes) {
+        if (released) {
+            return;
+        }
+        if (preloading != null && isPreparedFor(preloading, path)) {
+            loadControls.get(preloading).setPreloadBudget(durationMs, maxBytes);
+            return;
+        }
+
+        ExoPlayer player = null;
+        for (ExoPlayer candidate : warm) {
+            if (isPreparedFor(candidate, path)) {
+                player = candidate;
+                break;
+            }
+        }
+        if (player == null) {
+            if (warm.isEmpty()) {
+                warm.add(build());
+            }
+            player = warm.get(0);
+        }
+
+        loadControls.get(player).setPreloadBudget(durationMs, maxBytes);
+        if (!isPreparedFor(player, path)) {
+            Log.d(TAG, "Preloading " + path);
+            resetForReuse(player);
+            player.setPlayWhenReady(false);
+            player.setMediaItem(mediaItemFor(path));
+            player.prepare();
+        }
+        preloading = player;
+    }
+
+    /**
+     * Stop a preload in progress, e.g. because the user turned around.
+     */
+    @Override
+    public void cancelPreload() {
+        if (preloading == null) {
+            return;
+        }
+        Log.d(TAG, "Cancelling preload");
+        preloading.stop();
+        preloading.clearMediaItems();
+        preloading = null;
+    }
+
+    @Override
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        handler.removeCallbacks(stopIdleWarmPlayers);
+        BandwidthEstimateStore.save(context);
+        if (active != null) {
+            active.release();
+            active = null;
+        }
+        for (ExoPlayer player : warm) {
+            player.release();
+        }
+        warm.clear();
+        loadControls.clear();
+        preloading = null;
+    }
+
+    private ExoPlayer build() {
+        PreloadLoadControl loadControl = new PreloadLoadControl(buffering.createLoadControl());
+        ExoPlayer player = playerFactory.create(context, loadControl);
+        loadControls.put(player, loadControl);
+        return player;
+    }
+
+    private void trimWarmPlayers() {
+        while (warm.size() > MAX_WARM_PLAYERS) {
+            // Drop the oldest player that isn't preloading
+            ExoPlayer victim = warm.get(0) != preloading ? warm.get(0) : warm.get(1);
+            warm.remove(victim);
+            loadControls.remove(victim);
+            victim.release();
+        }
+        if (!warm.isEmpty()) {
+            handler.postDelayed(stopIdleWarmPlayers, WARM_IDLE_STOP_MS);
+        }
+    }
+
+    private void resetForReuse(ExoPlayer player) {
+        // Undo per-item settings left behind by the previous user
+        player.setTrackSelectionParameters(TrackSelectionParameters.getDefaults(context));
+        player.setPlaybackSpeed(1.0f);
+        player.setRepeatMode(ExoPlayer.REPEAT_MODE_OFF);
+    }
+}
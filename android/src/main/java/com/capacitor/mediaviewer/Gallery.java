@@ -0,0 +1,111 @@
+package com.capacitor.mediaviewer;
+
+import java.util.List;
+
+/**
+ * The viewer's position in its item list and how list changes from JS move it.
+ * {@link GalleryController} is the implementation. Main thread only.
+ */
+public interface Gallery {
+    interface Callback {
+        // A page of a paged album is needed
+        void onItemsRequested(int start, int count);
+        // The current item moved to another position but is still the same item
+        void onCurrentIndexShifted(int index);
+        // The item at the current position was replaced; sameMedia if path and type are unchanged
+        void onCurrentItemChanged(boolean sameMedia);
+        // Items around the current one were added, removed or replaced
+        void onNeighboursChanged();
+        // The neighbour being preloaded was removed or replaced
+        void onPreloadTargetInvalidated();
+        // The last item was removed
+        void onEmpty();
+    }
+
+    List<MediaItem> getItems();
+
+    int size();
+
+    boolean isInRange(int index);
+
+    /**
+     * Item at {@code index}, or null if it is out of range or not provided by JS yet.
+     */
+    MediaItem getItem(int index);
+
+    boolean isVideoAt(int index);
+
+    int getCurrentIndex();
+
+    MediaItem getCurrentItem();
+
+    boolean hasNext();
+
+    boolean hasPrevious();
+
+    boolean moveToNext();
+
+    boolean moveToPrevious();
+
+    /**
+     * Whether nothing has been displayed yet, i.e. the current item is the one show() opened.
+     */
+    boolean isFirstDisplay();
+
+    /**
+     * Record that the current item is on screen, updating the direction of travel.
+     */
+    void markDisplayed();
+
+    // 1 when moving towards the next item, -1 towards the previous one
+    int getNavigationDirection();
+
+    /**
+     * Neighbours in prefetch order: rank 0 is the next item in the direction of travel, rank 1
+     * the one behind, rank 2 two ahead, and so on. May be out of range.
+     */
+    int neighbourIndex(int rank);
+
+    /**
+     * The neighbouring video worth preloading: the one in the direction of travel, otherwise the
+     * one behind. -1 if neither neighbour is a loaded video.
+     */
+    int adjacentVideoIndex();
+
+    int getPreloadTargetIndex();
+
+    void setPreloadTargetIndex(int index);
+
+    /**
+     * Ask for the missing pages around the current position.
+     */
+    void requestItemsAround();
+
+    boolean isLoaded(int index);
+
+    /**
+     * Items for a paged album. Only positions that haven't been loaded are filled, so a late reply
+     * never replaces an item. Returns false if nothing was filled.
+     */
+    boolean provide(int start, List<MediaItem> provided);
+
+    void append(List<MediaItem> added);
+
+    /**
+     * Insert items before {@code index}. If they land before the current item, the index shifts
+     * but the current item stays the same. Returns false if {@code index} is out of range.
+     */
+    boolean insert(int index, List<MediaItem> added);
+
+    /**
+     * Remove {@code count} items starting at {@code index}. If the current item is among them,
+     * the item that took its place becomes current. Returns false if the range is out of bounds.
+     */
+    boolean remove(int index, int count);
+
+    /**
+     * Replace the item at {@code index}. Quality variants found for the old item are kept if
+     * the new one has the same path and type. Returns false if {@code index} is out of range.
+     */
+    boolean update(int index, MediaItem item);
+}
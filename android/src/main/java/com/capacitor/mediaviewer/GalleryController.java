@@ -0,0 +1,238 @@
+package com.capacitor.mediaviewer;
+
+import java.util.List;
+
+/**
+ * {@link Gallery} over a {@link MediaItemPager}: the current index, the direction the user is
+ * moving in, the neighbours to prefetch, the video the player pool is preloading, and how list
+ * changes from JS move all of these. It has no views or players, so swipe and list-change
+ * sequences can be run on a plain JVM. The viewer reacts to changes through {@link Callback}.
+ */
+public class GalleryController implements Gallery {
+
+    private final MediaItemPager pager;
+    private final List<MediaItem> items;
+    private final Callback callback;
+    private int currentIndex;
+    private int lastDisplayedIndex = -1;
+    private int navigationDirection = 1; // 1 = moving towards next, -1 = towards previous
+    private int preloadTargetIndex = -1;
+
+    public GalleryController(MediaItemPager pager, int currentIndex, Callback callback) {
+        this.pager = pager;
+        this.items = pager.getItems();
+        this.currentIndex = currentIndex;
+        this.callback = callback;
+    }
+
+    @Override
+    public List<MediaItem> getItems() {
+        return items;
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public boolean isInRange(int index) {
+        return index >= 0 && index < items.size();
+    }
+
+    @Override
+    public MediaItem getItem(int index) {
+        return isInRange(index) ? items.get(index) : null;
+    }
+
+    @Override
+    public boolean isVideoAt(int index) {
+        MediaItem item = getItem(index);
+        return item != null && "VIDEO".equals(item.type);
+    }
+
+    @Override
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    @Override
+    public MediaItem getCurrentItem() {
+        return getItem(currentIndex);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return currentIndex < items.size() - 1;
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return currentIndex > 0;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        if (!hasNext()) {
+            return false;
+        }
+        currentIndex++;
+        return true;
+    }
+
+    @Override
+    public boolean moveToPrevious() {
+        if (!hasPrevious()) {
+            return false;
+        }
+        currentIndex--;
+        return true;
+    }
+
+    @Override
+    public boolean isFirstDisplay() {
+        return lastDisplayedIndex < 0;
+    }
+
+    @Override
+    public void markDisplayed() {
+        if (lastDisplayedIndex >= 0 && currentIndex != lastDisplayedIndex) {
+            navigationDirection = currentIndex > lastDisplayedIndex ? 1 : -1;
+        }
+        lastDisplayedIndex = currentIndex;
+    }
+
+    @Override
+    public int getNavigationDirection() {
+        return navigationDirection;
+    }
+
+    @Override
+    public int neighbourIndex(int rank) {
+        int distance = rank / 2 + 1;
+        int step = rank % 2 == 0 ? navigationDirection : -navigationDirection;
+        return currentIndex + step * distance;
+    }
+
+    @Override
+    public int adjacentVideoIndex() {
+        int target = currentIndex + navigationDirection;
+        if (!isVideoAt(target)) {
+            target = currentIndex - navigationDirection;
+        }
+        return isVideoAt(target) ? target : -1;
+    }
+
+    @Override
+    public int getPreloadTargetIndex() {
+        return preloadTargetIndex;
+    }
+
+    @Override
+    public void setPreloadTargetIndex(int index) {
+        preloadTargetIndex = index;
+    }
+
+    @Override
+    public void requestItemsAround() {
+        pager.requestAround(currentIndex, callback::onItemsRequested);
+    }
+
+    @Override
+    public boolean isLoaded(int index) {
+        return pager.isLoaded(index);
+    }
+
+    @Override
+    public boolean provide(int start, List<MediaItem> provided) {
+        return pager.provide(start, provided);
+    }
+
+    @Override
+    public void append(List<MediaItem> added) {
+        pager.append(added);
+        callback.onNeighboursChanged();
+    }
+
+    @Override
+    public boolean insert(int index, List<MediaItem> added) {
+        if (index < 0 || index > items.size()) {
+            return false;
+        }
+
+        pager.insert(index, added);
+        if (preloadTargetIndex >= index) {
+            preloadTargetIndex += added.size();
+        }
+        if (index <= currentIndex) {
+            currentIndex += added.size();
+            lastDisplayedIndex = currentIndex;
+            callback.onCurrentIndexShifted(currentIndex);
+        }
+        callback.onNeighboursChanged();
+        return true;
+    }
+
+    @Override
+    public boolean remove(int index, int count) {
+        if (index < 0 || count < 0 || index + count > items.size()) {
+            return false;
+        }
+        if (count == 0) {
+            return true;
+        }
+
+        pager.remove(index, count);
+        if (preloadTargetIndex >= index + count) {
+            preloadTargetIndex -= count;
+        } else if (preloadTargetIndex >= index) {
+            preloadTargetIndex = -1;
+            callback.onPreloadTargetInvalidated();
+        }
+
+        if (items.isEmpty()) {
+            callback.onEmpty();
+            return true;
+        }
+        if (currentIndex >= index + count) {
+            currentIndex -= count;
+            lastDisplayedIndex = currentIndex;
+            callback.onCurrentIndexShifted(currentIndex);
+            callback.onNeighboursChanged();
+        } else if (currentIndex >= index) {
+            // The current item is gone - whatever took its place is current now
+            currentIndex = Math.min(index, items.size() - 1);
+            lastDisplayedIndex = currentIndex;
+            callback.onCurrentItemChanged(false);
+        } else {
+            callback.onNeighboursChanged();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean update(int index, MediaItem item) {
+        if (!isInRange(index)) {
+            return false;
+        }
+
+        MediaItem previous = items.get(index);
+        boolean sameMedia = previous != null && previous.path.equals(item.path) && previous.type.equals(item.type);
+        if (sameMedia) {
+            // Keep what was learned about the stream
+            item.qualityVariants = previous.qualityVariants;
+        }
+        pager.set(index, item);
+
+        if (index == currentIndex) {
+            callback.onCurrentItemChanged(sameMedia);
+        } else if (!sameMedia) {
+            if (index == preloadTargetIndex) {
+                preloadTargetIndex = -1;
+                callback.onPreloadTargetInvalidated();
+            }
+            callback.onNeighboursChanged();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,168 @@
+package com.capacitor.mediaviewer;
+
+/**
+ * Cursor over an HLS attribute list (RFC 8216 section 4.2), e.g. the part after
+ * "#EXT-X-STREAM-INF:". Works on index ranges of the original line so names are
+ * matched and numbers are parsed without allocating; only string values that are
+ * actually read produce a substring. One instance is reused for a whole playlist.
+ */
+final class HlsAttributeReader {
+
+    private String line;
+    private int position;
+    private int limit;
+
+    private int nameStart;
+    private int nameEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    void reset(String line, int start, int end) {
+        this.line = line;
+        this.position = start;
+        this.limit = end;
+        this.nameStart = this.nameEnd = this.valueStart = this.valueEnd = start;
+    }
+
+    /**
+     * Advance to the next NAME=VALUE pair. Returns false at the end of the list.
+     */
+    boolean next() {
+        while (position < limit) {
+            // Skip separators and stray whitespace
+            char c = line.charAt(position);
+            if (c == ',' || c == ' ' || c == '\t') {
+                position++;
+                continue;
+            }
+
+            nameStart = position;
+            while (position < limit && line.charAt(position) != '=' && line.charAt(position) != ',') {
+                position++;
+            }
+            nameEnd = position;
+            while (nameEnd > nameStart && line.charAt(nameEnd - 1) == ' ') {
+                nameEnd--;
+            }
+
+            if (position >= limit || line.charAt(position) == ',') {
+                // Malformed attribute without a value - ignore it
+                continue;
+            }
+            position++; // '='
+
+            if (position < limit && line.charAt(position) == '"') {
+                valueStart = ++position;
+                while (position < limit && line.charAt(position) != '"') {
+                    position++;
+                }
+                valueEnd = position;
+                if (position < limit) {
+                    position++; // closing quote
+                }
+                while (position < limit && line.charAt(position) != ',') {
+                    position++;
+                }
+            } else {
+                valueStart = position;
+                while (position < limit && line.charAt(position) != ',') {
+                    position++;
+                }
+                valueEnd = position;
+                while (valueEnd > valueStart && line.charAt(valueEnd - 1) == ' ') {
+                    valueEnd--;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    boolean nameIs(String name) {
+        int length = name.length();
+        return nameEnd - nameStart == length && line.regionMatches(nameStart, name, 0, length);
+    }
+
+    boolean valueIs(String value) {
+        int length = value.length();
+        return valueEnd - valueStart == length && line.regionMatches(valueStart, value, 0, length);
+    }
+
+    String stringValue() {
+        return line.substring(valueStart, valueEnd);
+    }
+
+    /**
+     * Decimal integer value, or -1 if the value is not a valid non-negative integer.
+     */
+    long longValue() {
+        return parseLong(valueStart, valueEnd);
+    }
+
+    float floatValue() {
+        int dot = valueStart;
+        while (dot < valueEnd && line.charAt(dot) != '.') {
+            dot++;
+        }
+        long whole = parseLong(valueStart, dot);
+        if (whole < 0) {
+            return 0f;
+        }
+        float result = whole;
+        float scale = 0.1f;
+        for (int i = dot + 1; i < valueEnd; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            result += (c - '0') * scale;
+            scale /= 10f;
+        }
+        return result;
+    }
+
+    /**
+     * Width of a "WIDTHxHEIGHT" resolution value, or -1 if malformed.
+     */
+    int resolutionWidth() {
+        int separator = resolutionSeparator();
+        return separator < 0 ? -1 : toInt(parseLong(valueStart, separator));
+    }
+
+    /**
+     * Height of a "WIDTHxHEIGHT" resolution value, or -1 if malformed.
+     */
+    int resolutionHeight() {
+        int separator = resolutionSeparator();
+        return separator < 0 ? -1 : toInt(parseLong(separator + 1, valueEnd));
+    }
+
+    private int resolutionSeparator() {
+        for (int i = valueStart; i < valueEnd; i++) {
+            char c = line.charAt(i);
+            if (c == 'x' || c == 'X') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int toInt(long value) {
+        return value > Integer.MAX_VALUE ? -1 : (int) value;
+    }
+
+    private long parseLong(int start, int end) {
+        if (start >= end || end - start > 18) {
+            return -1;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+}
@@ -0,0 +1,46 @@
+package com.capacitor.mediaviewer;
+
+import androidx.media3.common.Format;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.hls.HlsManifest;
+import androidx.media3.exoplayer.hls.playlist.HlsMultivariantPlaylist;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds quality variants from the multivariant playlist ExoPlayer already downloaded,
+ * so the master playlist does not have to be fetched a second time.
+ */
+@UnstableApi
+public class HlsManifestVariants {
+
+    public static List<QualityVariant> fromManifest(HlsManifest manifest) {
+        List<QualityVariant> variants = new ArrayList<>();
+        if (manifest == null || manifest.multivariantPlaylist == null) {
+            return variants;
+        }
+
+        for (HlsMultivariantPlaylist.Variant source : manifest.multivariantPlaylist.variants) {
+            Format format = source.format;
+            QualityVariant variant = new QualityVariant();
+            variant.url = source.url.toString();
+            variant.width = format.width != Format.NO_VALUE ? format.width : 0;
+            variant.height = format.height != Format.NO_VALUE ? format.height : 0;
+            variant.bandwidth = format.peakBitrate != Format.NO_VALUE ? format.peakBitrate : Math.max(0, format.bitrate);
+            variant.averageBandwidth = format.averageBitrate != Format.NO_VALUE ? format.averageBitrate : 0;
+            variant.codecs = format.codecs;
+            variant.frameRate = format.frameRate != Format.NO_VALUE ? format.frameRate : 0f;
+            variant.audioGroup = source.audioGroupId;
+            variant.videoGroup = source.videoGroupId;
+            variant.subtitlesGroup = source.subtitleGroupId;
+            variant.closedCaptions = source.captionGroupId;
+            variant.label = HlsPlaylistParser.labelFor(variant.height, variant.bandwidth);
+
+            // A media playlist played directly shows up as a single variant without attributes
+            if (variant.label != null) {
+                variants.add(variant);
+            }
+        }
+        return variants;
+    }
+}
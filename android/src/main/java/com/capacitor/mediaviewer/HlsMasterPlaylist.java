@@ -0,0 +1,10 @@
+package com.capacitor.mediaviewer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class HlsMasterPlaylist {
+    public final List<QualityVariant> variants = new ArrayList<>();
+    public final List<QualityVariant> iFrameVariants = new ArrayList<>();
+    public final List<HlsRendition> renditions = new ArrayList<>();
+}
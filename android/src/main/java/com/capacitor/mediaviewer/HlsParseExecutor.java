@@ -0,0 +1,185 @@
+package com.capacitor.mediaviewer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plugin-wide executor for HLS master playlist parsing.
+ * Runs parses on a small bounded pool, coalesces concurrent requests for the same URL
+ * and delivers results on the main thread. Cancelling the last request for a URL
+ * cancels the underlying parse.
+ */
+public class HlsParseExecutor {
+
+    private static final String TAG = "HlsParseExecutor";
+    private static final int MAX_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public interface Callback {
+        void onVariantsParsed(List<QualityVariant> variants);
+    }
+
+    public static final class Request {
+
+        private final HlsParseExecutor owner;
+        private final String url;
+        private final Callback callback;
+        private volatile boolean cancelled = false;
+
+        private Request(HlsParseExecutor owner, String url, Callback callback) {
+            this.owner = owner;
+            this.url = url;
+            this.callback = callback;
+        }
+
+        public String getUrl() {
+            return url;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            owner.detach(this);
+        }
+    }
+
+    private static final class InFlight {
+
+        final List<Request> waiters = new ArrayList<>();
+        Future<?> future;
+    }
+
+    private static HlsParseExecutor instance;
+
+    private final ThreadPoolExecutor executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    public static synchronized HlsParseExecutor getInstance() {
+        if (instance == null) {
+            instance = new HlsParseExecutor();
+        }
+        return instance;
+    }
+
+    private HlsParseExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "HlsParse-" + threadCount.incrementAndGet());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        };
+        executor =
+            new ThreadPoolExecutor(
+                MAX_THREADS,
+                MAX_THREADS,
+                KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                threadFactory
+            );
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Parse the master playlist at {@code url}. If a parse for the same URL is already queued or
+     * running, the request joins it instead of fetching the playlist again.
+     */
+    public Request parse(String url, Callback callback) {
+        Request request = new Request(this, url, callback);
+        synchronized (inFlight) {
+            InFlight entry = inFlight.get(url);
+            if (entry == null) {
+                InFlight created = new InFlight();
+                inFlight.put(url, created);
+                created.waiters.add(request);
+                created.future = executor.submit(() -> runParse(url, created));
+            } else {
+                entry.waiters.add(request);
+            }
+        }
+        return request;
+    }
+
+    /**
+     * Store variants obtained elsewhere (e.g. from the player's manifest) in the playlist cache
+     * without blocking the caller on disk I/O.
+     */
+    public void cacheVariants(String url, List<QualityVariant> variants) {
+        final List<QualityVariant> copy = new ArrayList<>(variants);
+        executor.execute(() -> {
+            HlsPlaylistCache cache = HlsPlaylistCache.getInstance();
+            HlsPlaylistCache.Entry existing = cache.get(url);
+            if (existing == null || !existing.isFresh()) {
+                cache.put(url, new HlsPlaylistCache.Entry(copy, null, null, System.currentTimeMillis() + HlsPlaylistParser.DEFAULT_TTL_MS));
+            }
+        });
+    }
+
+    private void runParse(String url, InFlight task) {
+        List<QualityVariant> variants = null;
+        if (!Thread.currentThread().isInterrupted()) {
+            variants = HlsPlaylistParser.parseMasterPlaylist(url);
+        }
+
+        List<Request> waiters;
+        synchronized (inFlight) {
+            // The entry may belong to a newer parse of the same URL if this one was cancelled
+            // (Map.remove(key, value) needs API 24)
+            if (inFlight.get(url) != task) {
+                return;
+            }
+            inFlight.remove(url);
+            waiters = task.waiters;
+        }
+
+        if (variants == null || waiters.isEmpty()) {
+            return;
+        }
+
+        final List<QualityVariant> result = variants;
+        mainHandler.post(() -> {
+            for (Request waiter : waiters) {
+                if (!waiter.cancelled) {
+                    waiter.callback.onVariantsParsed(result);
+                }
+            }
+        });
+    }
+
+    private void detach(Request request) {
+        synchronized (inFlight) {
+            InFlight entry = inFlight.get(request.url);
+            if (entry == null) {
+                return;
+            }
+            entry.waiters.remove(request);
+            if (entry.waiters.isEmpty()) {
+                // Nobody is waiting for this playlist anymore - drop the queued or running parse
+                inFlight.remove(request.url);
+                if (entry.future != null) {
+                    entry.future.cancel(true);
+                }
+                executor.purge();
+                Log.d(TAG, "Cancelled playlist parse: " + request.url);
+            }
+        }
+    }
+}
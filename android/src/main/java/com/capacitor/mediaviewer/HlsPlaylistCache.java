@@ -0,0 +1,285 @@
+package com.capacitor.mediaviewer;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Two-level LRU cache of parsed HLS master playlists keyed by playlist URL.
+ * Entries live in memory and in a compact binary file per URL under the app cache dir,
+ * so variants survive process restarts. Freshness follows the HTTP response
+ * (Cache-Control / Expires) and stale entries keep their ETag / Last-Modified validators
+ * for conditional revalidation.
+ *
+ * The memory level and the disk level have separate locks, so main-thread lookups never wait
+ * for a background thread's file I/O.
+ */
+public class HlsPlaylistCache {
+
+    private static final String TAG = "HlsPlaylistCache";
+    private static final String DIR_NAME = "hls_playlists";
+    private static final int DISK_FORMAT_VERSION = 2;
+    private static final int MAX_MEMORY_ENTRIES = 64;
+    private static final int MAX_DISK_ENTRIES = 256;
+
+    public static final class Entry {
+
+        public final List<QualityVariant> variants;
+        public final String etag;
+        public final String lastModified;
+        public final long expiresAtMs;
+
+        public Entry(List<QualityVariant> variants, String etag, String lastModified, long expiresAtMs) {
+            this.variants = Collections.unmodifiableList(new ArrayList<>(variants));
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.expiresAtMs = expiresAtMs;
+        }
+
+        public boolean isFresh() {
+            return System.currentTimeMillis() < expiresAtMs;
+        }
+
+        public Entry withExpiry(long newExpiresAtMs) {
+            return new Entry(variants, etag, lastModified, newExpiresAtMs);
+        }
+    }
+
+    private static HlsPlaylistCache instance;
+
+    // Access-ordered, so even reads modify it - guarded by itself
+    private final Map<String, Entry> memory = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > MAX_MEMORY_ENTRIES;
+        }
+    };
+    // Guards all file access
+    private final Object diskLock = new Object();
+    private volatile File diskDir;
+
+    public static synchronized HlsPlaylistCache getInstance() {
+        if (instance == null) {
+            instance = new HlsPlaylistCache();
+        }
+        return instance;
+    }
+
+    /**
+     * Enable the on-disk level. Safe to call more than once.
+     */
+    public static void init(Context context) {
+        HlsPlaylistCache cache = getInstance();
+        synchronized (cache.diskLock) {
+            if (cache.diskDir == null && context != null) {
+                cache.diskDir = new File(context.getCacheDir(), DIR_NAME);
+            }
+        }
+    }
+
+    /**
+     * Memory-only lookup, safe to call on the main thread. May return a stale entry.
+     */
+    public Entry peek(String url) {
+        synchronized (memory) {
+            return memory.get(url);
+        }
+    }
+
+    /**
+     * Memory lookup falling back to disk. Does file I/O, call from a background thread.
+     */
+    public Entry get(String url) {
+        Entry entry = peek(url);
+        if (entry != null) {
+            return entry;
+        }
+        synchronized (diskLock) {
+            entry = readFromDisk(url);
+        }
+        if (entry == null) {
+            return null;
+        }
+        synchronized (memory) {
+            // Keep an entry put while the file was being read, it is newer
+            Entry current = memory.get(url);
+            if (current != null) {
+                return current;
+            }
+            memory.put(url, entry);
+        }
+        return entry;
+    }
+
+    public void put(String url, Entry entry) {
+        synchronized (memory) {
+            memory.put(url, entry);
+        }
+        synchronized (diskLock) {
+            writeToDisk(url, entry);
+        }
+    }
+
+    public void remove(String url) {
+        synchronized (memory) {
+            memory.remove(url);
+        }
+        synchronized (diskLock) {
+            File file = fileFor(url);
+            if (file != null && file.exists() && !file.delete()) {
+                Log.w(TAG, "Could not delete cached playlist: " + file);
+            }
+        }
+    }
+
+    private File fileFor(String url) {
+        File dir = diskDir;
+        if (dir == null) {
+            return null;
+        }
+        return new File(dir, hash(url));
+    }
+
+    private Entry readFromDisk(String url) {
+        File file = fileFor(url);
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != DISK_FORMAT_VERSION || !url.equals(in.readUTF())) {
+                return null;
+            }
+            String etag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            long expiresAtMs = in.readLong();
+            int count = in.readInt();
+            List<QualityVariant> variants = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                QualityVariant variant = new QualityVariant();
+                variant.label = in.readUTF();
+                variant.url = in.readUTF();
+                variant.width = in.readInt();
+                variant.height = in.readInt();
+                variant.bandwidth = in.readLong();
+                variant.averageBandwidth = in.readLong();
+                variant.frameRate = in.readFloat();
+                variant.codecs = readOptionalString(in);
+                variant.hdcpLevel = readOptionalString(in);
+                variant.videoRange = readOptionalString(in);
+                variant.audioGroup = readOptionalString(in);
+                variant.videoGroup = readOptionalString(in);
+                variant.subtitlesGroup = readOptionalString(in);
+                variant.closedCaptions = readOptionalString(in);
+                variants.add(variant);
+            }
+            // Bump the file so disk trimming keeps recently used playlists
+            file.setLastModified(System.currentTimeMillis());
+            return new Entry(variants, etag, lastModified, expiresAtMs);
+        } catch (IOException e) {
+            Log.w(TAG, "Discarding unreadable cached playlist: " + e.getMessage());
+            file.delete();
+            return null;
+        }
+    }
+
+    private void writeToDisk(String url, Entry entry) {
+        File file = fileFor(url);
+        if (file == null) {
+            return;
+        }
+        File dir = file.getParentFile();
+        if (!dir.exists() && !dir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(dir, file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(DISK_FORMAT_VERSION);
+            out.writeUTF(url);
+            out.writeUTF(entry.etag != null ? entry.etag : "");
+            out.writeUTF(entry.lastModified != null ? entry.lastModified : "");
+            out.writeLong(entry.expiresAtMs);
+            out.writeInt(entry.variants.size());
+            for (QualityVariant variant : entry.variants) {
+                out.writeUTF(variant.label != null ? variant.label : "");
+                out.writeUTF(variant.url != null ? variant.url : "");
+                out.writeInt(variant.width);
+                out.writeInt(variant.height);
+                out.writeLong(variant.bandwidth);
+                out.writeLong(variant.averageBandwidth);
+                out.writeFloat(variant.frameRate);
+                writeOptionalString(out, variant.codecs);
+                writeOptionalString(out, variant.hdcpLevel);
+                writeOptionalString(out, variant.videoRange);
+                writeOptionalString(out, variant.audioGroup);
+                writeOptionalString(out, variant.videoGroup);
+                writeOptionalString(out, variant.subtitlesGroup);
+                writeOptionalString(out, variant.closedCaptions);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Could not write cached playlist: " + e.getMessage());
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            return;
+        }
+        trimDisk(dir);
+    }
+
+    private void trimDisk(File dir) {
+        File[] files = dir.listFiles();
+        if (files == null || files.length <= MAX_DISK_ENTRIES) {
+            return;
+        }
+        // Least recently used first
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (int i = 0; i < files.length - MAX_DISK_ENTRIES; i++) {
+            files[i].delete();
+        }
+    }
+
+    private static String readOptionalString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptionalString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String emptyToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static String hash(String url) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] bytes = digest.digest(url.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder(bytes.length * 2);
+            for (byte b : bytes) {
+                builder.append(String.format("%02x", b));
+            }
+            return builder.toString();
+        } catch (Exception e) {
+            return Integer.toHexString(url.hashCode());
+        }
+    }
+}
@@ -2,105 +2,300 @@ package com.capacitor.mediaviewer;
 
 import android.util.Log;
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Locale;
 
 public class HlsPlaylistParser {
 
     private static final String TAG = "HlsPlaylistParser";
+    // Freshness used when the server sends no caching headers
+    static final long DEFAULT_TTL_MS = 10 * 60 * 1000L;
+
+    private static final String TAG_STREAM_INF = "#EXT-X-STREAM-INF:";
+    private static final String TAG_I_FRAME_STREAM_INF = "#EXT-X-I-FRAME-STREAM-INF:";
+    private static final String TAG_MEDIA = "#EXT-X-MEDIA:";
 
     public static List<QualityVariant> parseMasterPlaylist(String playlistUrl) {
+        HlsPlaylistCache cache = HlsPlaylistCache.getInstance();
+        HlsPlaylistCache.Entry cached = cache.get(playlistUrl);
+        if (cached != null && cached.isFresh()) {
+            return cached.variants;
+        }
+
         List<QualityVariant> variants = new ArrayList<>();
+        HttpURLConnection connection = null;
 
         try {
             URL url = new URL(playlistUrl);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection = (HttpURLConnection) url.openConnection();
             connection.setRequestMethod("GET");
             connection.setConnectTimeout(5000);
             connection.setReadTimeout(5000);
 
-            InputStream inputStream = connection.getInputStream();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-
-            String line;
-            String currentLabel = null;
-            String currentVariantUrl = null;
-            int currentWidth = 0;
-            int currentHeight = 0;
-
-            Pattern resolutionPattern = Pattern.compile("RESOLUTION=(\\d+)x(\\d+)");
-            Pattern bandwidthPattern = Pattern.compile("BANDWIDTH=(\\d+)");
-
-            while ((line = reader.readLine()) != null) {
-                line = line.trim();
-
-                if (line.startsWith("#EXT-X-STREAM-INF:")) {
-                    currentWidth = 0;
-                    currentHeight = 0;
-                    currentLabel = null;
-
-                    Matcher resolutionMatcher = resolutionPattern.matcher(line);
-                    if (resolutionMatcher.find()) {
-                        currentWidth = Integer.parseInt(resolutionMatcher.group(1));
-                        currentHeight = Integer.parseInt(resolutionMatcher.group(2));
-                        currentLabel = currentHeight + "p"; // e.g., 1080p
-                    }
-
-                    if (currentLabel == null) {
-                        Matcher bandwidthMatcher = bandwidthPattern.matcher(line);
-                        if (bandwidthMatcher.find()) {
-                            int bandwidth = Integer.parseInt(bandwidthMatcher.group(1));
-                            if (bandwidth < 500000) {
-                                currentLabel = "SD";
-                            } else if (bandwidth < 2000000) {
-                                currentLabel = "HD";
-                            } else {
-                                currentLabel = "Full HD";
-                            }
-                        }
-                    }
-                } else if (!line.startsWith("#") && !line.isEmpty()) {
-                    currentVariantUrl = resolveUrl(playlistUrl, line);
-
-                    if (currentVariantUrl != null && currentLabel != null) {
-                        QualityVariant variant = new QualityVariant();
-                        variant.label = currentLabel;
-                        variant.url = currentVariantUrl;
-                        variant.width = currentWidth;
-                        variant.height = currentHeight;
-
-                        variants.add(variant);
+            // Revalidate a stale entry instead of downloading the playlist again
+            if (cached != null) {
+                if (cached.etag != null) {
+                    connection.setRequestProperty("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    connection.setRequestProperty("If-Modified-Since", cached.lastModified);
+                }
+            }
 
-                        // Reset flags
-                        currentLabel = null;
-                        currentVariantUrl = null;
-                    }
+            int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+                long expiresAtMs = computeExpiry(connection);
+                if (expiresAtMs > 0) {
+                    cache.put(playlistUrl, cached.withExpiry(expiresAtMs));
                 }
+                return cached.variants;
             }
 
+            InputStream inputStream = connection.getInputStream();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+            variants = parse(reader, playlistUrl).variants;
             reader.close();
             inputStream.close();
-            connection.disconnect();
+
+            long expiresAtMs = computeExpiry(connection);
+            if (expiresAtMs >= 0 && !variants.isEmpty()) {
+                cache.put(
+                    playlistUrl,
+                    new HlsPlaylistCache.Entry(
+                        variants,
+                        connection.getHeaderField("ETag"),
+                        connection.getHeaderField("Last-Modified"),
+                        expiresAtMs
+                    )
+                );
+            } else if (expiresAtMs < 0 && cached != null) {
+                cache.remove(playlistUrl);
+            }
         } catch (Exception e) {
             Log.e(TAG, "Error parsing HLS playlist: " + e.getMessage());
+            // Serve a stale entry rather than nothing when the network is unavailable
+            if (cached != null) {
+                return cached.variants;
+            }
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
         }
 
         return variants;
     }
 
-    private static String resolveUrl(String baseUrl, String relativeUrl) {
+    /**
+     * Single-pass parse of a master playlist read line by line from {@code reader}.
+     * Relative URIs are resolved against {@code playlistUrl}.
+     */
+    public static HlsMasterPlaylist parse(BufferedReader reader, String playlistUrl) throws IOException {
+        HlsMasterPlaylist playlist = new HlsMasterPlaylist();
+        HlsAttributeReader attributes = new HlsAttributeReader();
+        QualityVariant pendingVariant = null;
+        // Parsed once; every relative URI in the playlist resolves against it
+        URL base = parseBaseUrl(playlistUrl);
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            // Trim by index instead of allocating a trimmed copy of every line
+            int start = 0;
+            int end = line.length();
+            while (start < end && line.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (start == end) {
+                continue;
+            }
+
+            if (line.charAt(start) != '#') {
+                if (pendingVariant != null) {
+                    String uri = start == 0 && end == line.length() ? line : line.substring(start, end);
+                    pendingVariant.url = resolveUrl(base, uri);
+                    playlist.variants.add(pendingVariant);
+                    pendingVariant = null;
+                }
+            } else if (line.startsWith(TAG_STREAM_INF, start)) {
+                attributes.reset(line, start + TAG_STREAM_INF.length(), end);
+                pendingVariant = readVariant(attributes, base);
+            } else if (line.startsWith(TAG_I_FRAME_STREAM_INF, start)) {
+                attributes.reset(line, start + TAG_I_FRAME_STREAM_INF.length(), end);
+                QualityVariant variant = readVariant(attributes, base);
+                if (variant != null && variant.url != null) {
+                    playlist.iFrameVariants.add(variant);
+                }
+            } else if (line.startsWith(TAG_MEDIA, start)) {
+                attributes.reset(line, start + TAG_MEDIA.length(), end);
+                playlist.renditions.add(readRendition(attributes, base));
+            }
+        }
+
+        return playlist;
+    }
+
+    private static QualityVariant readVariant(HlsAttributeReader attributes, URL base) {
+        QualityVariant variant = new QualityVariant();
+        while (attributes.next()) {
+            if (attributes.nameIs("BANDWIDTH")) {
+                variant.bandwidth = Math.max(0, attributes.longValue());
+            } else if (attributes.nameIs("AVERAGE-BANDWIDTH")) {
+                variant.averageBandwidth = Math.max(0, attributes.longValue());
+            } else if (attributes.nameIs("RESOLUTION")) {
+                int width = attributes.resolutionWidth();
+                int height = attributes.resolutionHeight();
+                if (width >= 0 && height >= 0) {
+                    variant.width = width;
+                    variant.height = height;
+                }
+            } else if (attributes.nameIs("CODECS")) {
+                variant.codecs = attributes.stringValue();
+            } else if (attributes.nameIs("FRAME-RATE")) {
+                variant.frameRate = attributes.floatValue();
+            } else if (attributes.nameIs("HDCP-LEVEL")) {
+                variant.hdcpLevel = attributes.stringValue();
+            } else if (attributes.nameIs("VIDEO-RANGE")) {
+                variant.videoRange = attributes.stringValue();
+            } else if (attributes.nameIs("AUDIO")) {
+                variant.audioGroup = attributes.stringValue();
+            } else if (attributes.nameIs("VIDEO")) {
+                variant.videoGroup = attributes.stringValue();
+            } else if (attributes.nameIs("SUBTITLES")) {
+                variant.subtitlesGroup = attributes.stringValue();
+            } else if (attributes.nameIs("CLOSED-CAPTIONS")) {
+                variant.closedCaptions = attributes.stringValue();
+            } else if (attributes.nameIs("URI")) {
+                // Only present on #EXT-X-I-FRAME-STREAM-INF
+                variant.url = resolveUrl(base, attributes.stringValue());
+            }
+        }
+
+        variant.label = labelFor(variant.height, variant.bandwidth);
+        if (variant.label == null) {
+            // Neither RESOLUTION nor BANDWIDTH - not selectable
+            return null;
+        }
+        return variant;
+    }
+
+    /**
+     * Display label for a variant: its height when known, otherwise a bandwidth bucket.
+     * Returns null when neither is available.
+     */
+    static String labelFor(int height, long bandwidth) {
+        if (height > 0) {
+            return height + "p"; // e.g., 1080p
+        }
+        if (bandwidth > 0) {
+            if (bandwidth < 500000) {
+                return "SD";
+            } else if (bandwidth < 2000000) {
+                return "HD";
+            }
+            return "Full HD";
+        }
+        return null;
+    }
+
+    private static HlsRendition readRendition(HlsAttributeReader attributes, URL base) {
+        HlsRendition rendition = new HlsRendition();
+        while (attributes.next()) {
+            if (attributes.nameIs("TYPE")) {
+                rendition.type = attributes.stringValue();
+            } else if (attributes.nameIs("GROUP-ID")) {
+                rendition.groupId = attributes.stringValue();
+            } else if (attributes.nameIs("NAME")) {
+                rendition.name = attributes.stringValue();
+            } else if (attributes.nameIs("LANGUAGE")) {
+                rendition.language = attributes.stringValue();
+            } else if (attributes.nameIs("ASSOC-LANGUAGE")) {
+                rendition.assocLanguage = attributes.stringValue();
+            } else if (attributes.nameIs("URI")) {
+                rendition.url = resolveUrl(base, attributes.stringValue());
+            } else if (attributes.nameIs("INSTREAM-ID")) {
+                rendition.instreamId = attributes.stringValue();
+            } else if (attributes.nameIs("CHARACTERISTICS")) {
+                rendition.characteristics = attributes.stringValue();
+            } else if (attributes.nameIs("CHANNELS")) {
+                rendition.channels = attributes.stringValue();
+            } else if (attributes.nameIs("DEFAULT")) {
+                rendition.isDefault = attributes.valueIs("YES");
+            } else if (attributes.nameIs("AUTOSELECT")) {
+                rendition.autoSelect = attributes.valueIs("YES");
+            } else if (attributes.nameIs("FORCED")) {
+                rendition.forced = attributes.valueIs("YES");
+            }
+        }
+        return rendition;
+    }
+
+    /**
+     * Expiry time for a response based on Cache-Control / Expires.
+     * Returns -1 when the response must not be stored.
+     */
+    private static long computeExpiry(HttpURLConnection connection) {
+        long now = System.currentTimeMillis();
+        String cacheControl = connection.getHeaderField("Cache-Control");
+        if (cacheControl != null) {
+            String lower = cacheControl.toLowerCase(Locale.US);
+            if (lower.contains("no-store")) {
+                return -1;
+            }
+            if (lower.contains("no-cache")) {
+                // Keep it for revalidation only
+                return now;
+            }
+            int index = lower.indexOf("max-age=");
+            if (index >= 0) {
+                int start = index + "max-age=".length();
+                int end = start;
+                while (end < lower.length() && Character.isDigit(lower.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    try {
+                        return now + Long.parseLong(lower.substring(start, end)) * 1000L;
+                    } catch (NumberFormatException e) {
+                        // Fall through to Expires / default
+                    }
+                }
+            }
+        }
+        long expires = connection.getExpiration();
+        if (expires > 0) {
+            return expires;
+        }
+        return now + DEFAULT_TTL_MS;
+    }
+
+    static URL parseBaseUrl(String baseUrl) {
+        try {
+            return new URL(baseUrl);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolve {@code relativeUrl} against {@code base}; returned unchanged if it is already
+     * absolute or can't be resolved.
+     */
+    static String resolveUrl(URL base, String relativeUrl) {
         try {
-            if (relativeUrl.startsWith("http://") || relativeUrl.startsWith("https://")) {
+            if (base == null || relativeUrl.startsWith("http://") || relativeUrl.startsWith("https://")) {
                 return relativeUrl;
             }
 
-            URL base = new URL(baseUrl);
             URL resolved = new URL(base, relativeUrl);
             return resolved.toString();
         } catch (Exception e) {
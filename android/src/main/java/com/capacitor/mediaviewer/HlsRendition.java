@@ -0,0 +1,17 @@
+package com.capacitor.mediaviewer;
+
+// Alternative rendition declared by #EXT-X-MEDIA
+public class HlsRendition {
+    public String type; // "AUDIO", "VIDEO", "SUBTITLES" or "CLOSED-CAPTIONS"
+    public String groupId;
+    public String name;
+    public String language;
+    public String assocLanguage;
+    public String url;
+    public String instreamId;
+    public String characteristics;
+    public String channels;
+    public boolean isDefault;
+    public boolean autoSelect;
+    public boolean forced;
+}
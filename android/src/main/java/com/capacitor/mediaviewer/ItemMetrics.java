@@ -0,0 +1,34 @@
+package com.capacitor.mediaviewer;
+
+import com.getcapacitor.JSObject;
+
+// Playback numbers for one video, from being shown until the viewer moves on
+public class ItemMetrics {
+    public int index;
+    public String path;
+    // From show() (first item) or the swipe settling to the first rendered frame, -1 if none yet
+    public long timeToFirstFrameMs = -1;
+    // Stalls after the first frame, not counting buffering caused by seeking
+    public int rebufferCount;
+    public long rebufferDurationMs;
+    public int droppedFrames;
+    // Changes of the video bitrate being played, whether chosen by "Auto" or by setQuality()
+    public int bitrateSwitchCount;
+    // Time from the last setQuality() to a specific quality until the player decoded it, -1 if none
+    public long lastQualitySwitchMs = -1;
+    public long bytesLoaded;
+
+    public JSObject toJSObject() {
+        JSObject obj = new JSObject();
+        obj.put("index", index);
+        obj.put("path", path);
+        obj.put("timeToFirstFrameMs", timeToFirstFrameMs);
+        obj.put("rebufferCount", rebufferCount);
+        obj.put("rebufferDurationMs", rebufferDurationMs);
+        obj.put("droppedFrames", droppedFrames);
+        obj.put("bitrateSwitchCount", bitrateSwitchCount);
+        obj.put("lastQualitySwitchMs", lastQualitySwitchMs);
+        obj.put("bytesLoaded", bytesLoaded);
+        return obj;
+    }
+}
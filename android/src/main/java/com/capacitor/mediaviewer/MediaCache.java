@@ -0,0 +1,253 @@
+package com.capacitor.mediaviewer;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.database.StandaloneDatabaseProvider;
+import androidx.media3.datasource.DataSource;
+import androidx.media3.datasource.DataSpec;
+import androidx.media3.datasource.DefaultDataSource;
+import androidx.media3.datasource.DefaultHttpDataSource;
+import androidx.media3.datasource.TransferListener;
+import androidx.media3.datasource.cache.Cache;
+import androidx.media3.datasource.cache.CacheDataSource;
+import androidx.media3.datasource.cache.CacheEvictor;
+import androidx.media3.datasource.cache.CacheSpan;
+import androidx.media3.datasource.cache.SimpleCache;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Process-wide on-disk cache for downloaded video data, shared by every player the viewer builds.
+ * Remote media is read through a CacheDataSource so rewatching a clip or swiping back to it is
+ * served from disk; local files bypass the cache. HLS playlists are always fetched from the
+ * network so live playlists never go stale. Least recently used data is evicted once the
+ * configured size is exceeded.
+ */
+@UnstableApi
+public class MediaCache {
+
+    private static final String TAG = "MediaCache";
+    private static final String DIR_NAME = "media_cache";
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    private static MediaCache instance;
+
+    private final Context context;
+    private final ResizableLruEvictor evictor = new ResizableLruEvictor(DEFAULT_MAX_BYTES);
+    private SimpleCache cache;
+
+    public static synchronized MediaCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Create the cache. Safe to call more than once.
+     */
+    public static synchronized void init(Context context) {
+        if (instance == null && context != null) {
+            instance = new MediaCache(context.getApplicationContext());
+        }
+    }
+
+    private MediaCache(Context context) {
+        this.context = context;
+    }
+
+    /**
+     * Data source factory for players: cached for remote media, direct for everything else.
+     */
+    public DataSource.Factory getDataSourceFactory() {
+        DefaultHttpDataSource.Factory httpFactory = new DefaultHttpDataSource.Factory().setAllowCrossProtocolRedirects(true);
+        CacheDataSource.Factory cacheFactory = new CacheDataSource.Factory()
+            .setCache(getCache())
+            .setUpstreamDataSourceFactory(httpFactory)
+            .setFlags(CacheDataSource.FLAG_IGNORE_CACHE_ON_ERROR);
+        // DefaultDataSource handles file://, content:// and assets itself and only uses this for network URIs
+        return new DefaultDataSource.Factory(
+            context,
+            () -> new PlaylistBypassingDataSource(cacheFactory.createDataSource(), httpFactory.createDataSource())
+        );
+    }
+
+    /**
+     * Change the size cap. Shrinking evicts immediately, so call from a background thread.
+     */
+    public void setMaxBytes(long maxBytes) {
+        if (maxBytes <= 0 || maxBytes == evictor.getMaxBytes()) {
+            return;
+        }
+        Log.d(TAG, "Cache size limit set to " + maxBytes + " bytes");
+        SimpleCache simpleCache = getCache();
+        synchronized (simpleCache) {
+            evictor.setMaxBytes(maxBytes);
+            evictor.trim(simpleCache);
+        }
+    }
+
+    public long getMaxBytes() {
+        return evictor.getMaxBytes();
+    }
+
+    public long getUsedBytes() {
+        return getCache().getCacheSpace();
+    }
+
+    public int getEntryCount() {
+        return getCache().getKeys().size();
+    }
+
+    /**
+     * Remove all cached media. Data currently being written by a player is skipped.
+     */
+    public void clear() {
+        SimpleCache simpleCache = getCache();
+        List<String> keys = new ArrayList<>(simpleCache.getKeys());
+        for (String key : keys) {
+            simpleCache.removeResource(key);
+        }
+        Log.d(TAG, "Cleared " + keys.size() + " cached resources");
+    }
+
+    private synchronized SimpleCache getCache() {
+        if (cache == null) {
+            File dir = new File(context.getCacheDir(), DIR_NAME);
+            cache = new SimpleCache(dir, evictor, new StandaloneDatabaseProvider(context));
+        }
+        return cache;
+    }
+
+    /**
+     * LRU evictor like LeastRecentlyUsedCacheEvictor, but with a size cap that can change
+     * while the cache is open. Callbacks run under the SimpleCache lock.
+     */
+    private static final class ResizableLruEvictor implements CacheEvictor {
+
+        private final TreeSet<CacheSpan> leastRecentlyUsed = new TreeSet<>(ResizableLruEvictor::compare);
+        private volatile long maxBytes;
+        private long currentSize;
+
+        ResizableLruEvictor(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        long getMaxBytes() {
+            return maxBytes;
+        }
+
+        void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        void trim(Cache cache) {
+            evict(cache, 0);
+        }
+
+        @Override
+        public boolean requiresCacheSpanTouches() {
+            return true;
+        }
+
+        @Override
+        public void onCacheInitialized() {}
+
+        @Override
+        public void onStartFile(Cache cache, String key, long position, long length) {
+            if (length != C.LENGTH_UNSET) {
+                evict(cache, length);
+            }
+        }
+
+        @Override
+        public void onSpanAdded(Cache cache, CacheSpan span) {
+            leastRecentlyUsed.add(span);
+            currentSize += span.length;
+            evict(cache, 0);
+        }
+
+        @Override
+        public void onSpanRemoved(Cache cache, CacheSpan span) {
+            leastRecentlyUsed.remove(span);
+            currentSize -= span.length;
+        }
+
+        @Override
+        public void onSpanTouched(Cache cache, CacheSpan oldSpan, CacheSpan newSpan) {
+            onSpanRemoved(cache, oldSpan);
+            onSpanAdded(cache, newSpan);
+        }
+
+        private void evict(Cache cache, long requiredSpace) {
+            while (currentSize + requiredSpace > maxBytes && !leastRecentlyUsed.isEmpty()) {
+                cache.removeSpan(leastRecentlyUsed.first());
+            }
+        }
+
+        private static int compare(CacheSpan lhs, CacheSpan rhs) {
+            if (lhs.lastTouchTimestamp == rhs.lastTouchTimestamp) {
+                return lhs.compareTo(rhs);
+            }
+            return lhs.lastTouchTimestamp < rhs.lastTouchTimestamp ? -1 : 1;
+        }
+    }
+
+    /**
+     * Sends HLS playlist requests straight to the network and everything else through the cache.
+     */
+    private static final class PlaylistBypassingDataSource implements DataSource {
+
+        private final DataSource cached;
+        private final DataSource direct;
+        private DataSource current;
+
+        PlaylistBypassingDataSource(DataSource cached, DataSource direct) {
+            this.cached = cached;
+            this.direct = direct;
+        }
+
+        @Override
+        public void addTransferListener(TransferListener transferListener) {
+            cached.addTransferListener(transferListener);
+            direct.addTransferListener(transferListener);
+        }
+
+        @Override
+        public long open(DataSpec dataSpec) throws IOException {
+            current = HlsPlaylistParser.isHlsUrl(dataSpec.uri.toString()) ? direct : cached;
+            return current.open(dataSpec);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return current.read(buffer, offset, length);
+        }
+
+        @Override
+        public Uri getUri() {
+            return current != null ? current.getUri() : null;
+        }
+
+        @Override
+        public Map<String, List<String>> getResponseHeaders() {
+            return current != null ? current.getResponseHeaders() : Collections.emptyMap();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (current != null) {
+                try {
+                    current.close();
+                } finally {
+                    current = null;
+                }
+            }
+        }
+    }
+}
@@ -9,5 +9,18 @@ public class MediaItem {
     public String thumbnail;
     // Internal use only - quality variants are auto-detected
     public List<QualityVariant> qualityVariants;
+
+    /**
+     * Copy of this item playing {@code path} instead, e.g. a single quality variant.
+     */
+    public MediaItem withPath(String path) {
+        MediaItem copy = new MediaItem();
+        copy.path = path;
+        copy.type = type;
+        copy.alt = alt;
+        copy.thumbnail = thumbnail;
+        copy.qualityVariants = qualityVariants;
+        return copy;
+    }
 }
 
@@ -0,0 +1,34 @@
+package com.capacitor.mediaviewer;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Decodes the {@code items} passed from JS into {@link MediaItem}s. Only uses org.json, so it
+ * runs (and can be measured) on a plain JVM as well as on the device.
+ */
+final class MediaItemDecoder {
+
+    private MediaItemDecoder() {}
+
+    static List<MediaItem> decodeItems(JSONArray itemsArray) throws JSONException {
+        int count = itemsArray.length();
+        List<MediaItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(decodeItem(itemsArray.getJSONObject(i)));
+        }
+        return items;
+    }
+
+    static MediaItem decodeItem(JSONObject itemObj) throws JSONException {
+        MediaItem item = new MediaItem();
+        item.path = itemObj.getString("path");
+        item.type = itemObj.getString("type");
+        item.alt = itemObj.optString("alt", null);
+        item.thumbnail = itemObj.optString("thumbnail", null);
+        return item;
+    }
+}
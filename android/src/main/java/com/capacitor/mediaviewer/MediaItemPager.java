@@ -0,0 +1,113 @@
+package com.capacitor.mediaviewer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Item list for albums that are loaded page by page from JS.
+ * show() passes only a window of items plus the album's total count. Positions that haven't
+ * been loaded are null, and pages near the viewed position are requested through
+ * {@link Callback#onItemsRequested(int, int)} until JS provides them.
+ * The list can also be changed in place while the viewer is open.
+ */
+public class MediaItemPager {
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    // Upper bound on an album's total count; every position costs a slot in the backing list
+    public static final int MAX_TOTAL_COUNT = 100000;
+
+    public interface Callback {
+        void onItemsRequested(int start, int count);
+    }
+
+    private final ArrayList<MediaItem> items;
+    private final int pageSize;
+    // Pages requested from JS and not yet provided
+    private final Set<Integer> requestedPages = new HashSet<>();
+
+    public MediaItemPager(List<MediaItem> window, int windowStart, int totalCount, int pageSize) {
+        int start = Math.max(0, windowStart);
+        int total = Math.max(totalCount, start + window.size());
+        this.pageSize = Math.max(1, pageSize);
+        items = new ArrayList<>(total);
+        items.addAll(Collections.nCopies(total, null));
+        for (int i = 0; i < window.size(); i++) {
+            items.set(start + i, window.get(i));
+        }
+    }
+
+    /**
+     * Backing list used by the viewer. Positions not loaded yet hold null.
+     */
+    public List<MediaItem> getItems() {
+        return items;
+    }
+
+    public boolean isLoaded(int index) {
+        return index >= 0 && index < items.size() && items.get(index) != null;
+    }
+
+    /**
+     * Request every missing page that has an item within half a page of {@code index}.
+     */
+    public void requestAround(int index, Callback callback) {
+        int radius = pageSize / 2;
+        int from = Math.max(0, index - radius);
+        int to = Math.min(items.size() - 1, index + radius);
+        int lastPage = -1;
+        for (int i = from; i <= to; i++) {
+            int page = i / pageSize;
+            if (page == lastPage || items.get(i) != null) {
+                continue;
+            }
+            lastPage = page;
+            if (requestedPages.add(page)) {
+                int pageStart = page * pageSize;
+                callback.onItemsRequested(pageStart, Math.min(pageSize, items.size() - pageStart));
+            }
+        }
+    }
+
+    /**
+     * Fill in items provided by JS starting at {@code start}. Only positions that are still empty
+     * are written: a reply to a request made before an insert or remove is aligned to the old
+     * positions and must not overwrite items that are loaded now. Returns false if nothing was filled.
+     */
+    public boolean provide(int start, List<MediaItem> provided) {
+        boolean changed = false;
+        for (int i = 0; i < provided.size(); i++) {
+            int index = start + i;
+            if (index < 0 || index >= items.size()) {
+                continue;
+            }
+            requestedPages.remove(index / pageSize);
+            if (items.get(index) == null) {
+                items.set(index, provided.get(i));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public void append(List<MediaItem> added) {
+        items.addAll(added);
+    }
+
+    public void insert(int index, List<MediaItem> added) {
+        items.addAll(index, added);
+        // Page numbers of everything after the insertion point changed
+        requestedPages.clear();
+    }
+
+    public void remove(int index, int count) {
+        items.subList(index, index + count).clear();
+        requestedPages.clear();
+    }
+
+    public void set(int index, MediaItem item) {
+        items.set(index, item);
+    }
+}
@@ -0,0 +1,25 @@
+package com.capacitor.mediaviewer;
+
+import androidx.media3.common.util.UnstableApi;
+
+// Viewer options passed through show()
+public class MediaViewerConfig {
+    // Prepare the neighbouring video in the direction the user is moving
+    public boolean preloadAdjacent = true;
+    // How much of the neighbouring video to buffer ahead of time
+    public long preloadDurationMs = 5000;
+    public long preloadMaxBytes = 8L * 1024 * 1024;
+    // Neighbours on each side whose image (or video thumbnail) is decoded ahead of time
+    public int imagePrefetchCount = 2;
+    // Items per page when the album is loaded from JS in pages
+    public int pageSize = MediaItemPager.DEFAULT_PAGE_SIZE;
+    // Minimum time between position-only playbackStateChanged events
+    public long stateEventIntervalMs = PlaybackStateEventBridge.DEFAULT_INTERVAL_MS;
+    // Size cap for the on-disk video cache, 0 keeps the current limit
+    public long cacheMaxBytes = 0;
+    // Player buffer sizes: a named profile plus any overrides
+    @UnstableApi
+    public BufferingProfile buffering = BufferingProfile.forName(BufferingProfile.DEFAULT);
+    // When show() was called (elapsedRealtime), the start of the first item's time-to-first-frame
+    public long shownAtMs = 0;
+}
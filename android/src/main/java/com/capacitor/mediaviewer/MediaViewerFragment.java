@@ -6,6 +6,7 @@ import android.animation.ObjectAnimator;
 import android.content.Context;
 import android.graphics.Color;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.media.AudioManager;
 import android.os.Bundle;
 import android.os.Handler;
@@ -16,7 +17,6 @@ import android.view.GestureDetector;
 import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
-import android.view.Surface;
 import android.view.TextureView;
 import android.view.View;
 import android.view.ViewGroup;
@@ -35,31 +35,44 @@ import android.widget.SeekBar;
 import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.OptIn;
 import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.DialogFragment;
 import androidx.media3.common.C;
-import androidx.media3.common.Format;
 import androidx.media3.common.Player;
+import androidx.media3.common.Timeline;
 import androidx.media3.common.Tracks;
 import androidx.media3.common.text.Cue;
 import androidx.media3.common.util.UnstableApi;
 import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.exoplayer.hls.HlsManifest;
 import androidx.media3.exoplayer.trackselection.DefaultTrackSelector;
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.resource.bitmap.DownsampleStrategy;
+import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.request.transition.Transition;
 import com.capacitor.mediaviewer.R;
+import java.io.File;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class MediaViewerFragment extends DialogFragment {
 
     private static final String ARG_ITEMS = "items";
     private static final String ARG_CURRENT_INDEX = "currentIndex";
     private static final String ARG_TITLE = "title";
+    // Zoomed re-decodes stay within the GL texture limit of older devices
+    private static final int ZOOM_DECODE_MAX_DIMENSION = 4096;
 
-    private List<MediaItem> mediaItems;
-    private int currentIndex;
+    private Gallery gallery;
     private String title;
+    private MediaViewerConfig config = new MediaViewerConfig();
     private MediaViewerListener listener;
 
     private FrameLayout videoContainer;
@@ -67,14 +80,20 @@ public class MediaViewerFragment extends DialogFragment {
     private TextureView textureView;
     private TouchImageView mediaImageView;
     private ImageView videoThumbnail;
+    private PlaybackEngine playbackEngine;
+    // The engine's current player, for the controls
     private ExoPlayer exoPlayer;
-    private Surface videoSurface;
+    private PlaybackMetricsCollector metricsCollector;
+    private VideoSurfaceManager videoSurfaceManager;
     private GestureDetector gestureDetector;
     private Handler playbackHandler;
     private Runnable playbackRunnable;
-    private String currentQuality = "Auto"; // Default to Auto
-    private String actualPlayingQuality = null; // Track actual quality when Auto is selected
+    private long lastStateTickMs;
     private boolean playbackEnded = false;
+    // The seek bar is refreshed at least this often, however long stateEventIntervalMs is
+    private static final long SEEK_BAR_TICK_MS = 500;
+    // Position polling never runs faster than this, even with stateEventIntervalMs of 0
+    private static final long MIN_STATE_TICK_MS = 100;
 
     // Custom controls
     private LinearLayout controlsContainer;
@@ -94,8 +113,7 @@ public class MediaViewerFragment extends DialogFragment {
     private boolean controlsVisible = true; // Start visible
     private Runnable hideControlsRunnable;
     
-    // Playback speed and captions
-    private float currentPlaybackSpeed = 1.0f;
+    // Captions
     private boolean captionsEnabled = false;
     
     // Error handling
@@ -109,6 +127,9 @@ public class MediaViewerFragment extends DialogFragment {
     private ViewGroup rootView;
     private FrameLayout currentMediaContainer;
     private FrameLayout nextMediaContainer;
+    // The incoming page of a swipe. Built once, kept in rootView and rebound for every swipe
+    private FrameLayout swipePage;
+    private ImageView swipePageImage;
     private boolean isSwiping = false;
     private float swipeStartX = 0;
     private float swipeTotalDistance = 0;
@@ -117,27 +138,119 @@ public class MediaViewerFragment extends DialogFragment {
     private ViewTreeObserver.OnGlobalLayoutListener layoutListener;
     private int lastContainerWidth = 0;
     private int lastContainerHeight = 0;
-    private List<QualityVariant> qualityVariants = new ArrayList<>();
     private String currentVideoUrl = null;
     private int lastVideoWidth = 0;
     private int lastVideoHeight = 0;
     private float lastPixelRatio = 1f;
     private String currentImageUrl = null;
+    private QualityVariantsLoader qualityVariantsLoader;
+
+    // Paged albums: the current position is waiting for its item from JS
+    private boolean showingPlaceholder = false;
+    // Glide preloads for the images around the current item, keyed by path
+    private final Map<String, Target<Drawable>> imagePrefetchTargets = new LinkedHashMap<>();
+    // Sharper decode of the current image, requested once the user zooms past the screen-sized one
+    private CustomTarget<Drawable> zoomDecodeTarget;
+    // Reused by touch handling for getLocationOnScreen, so gestures don't allocate per event
+    private final int[] touchLocation = new int[2];
+    // Source file of the current image, fetched to check whether it needs tiled deep zoom
+    private CustomTarget<File> zoomSourceTarget;
+    private TiledImageSource tiledImageSource;
+    // List changes that arrived mid-swipe, applied once the swipe settles
+    private final List<Runnable> pendingItemChanges = new ArrayList<>();
+
+    private final Gallery.Callback galleryCallback = new Gallery.Callback() {
+        @Override
+        public void onItemsRequested(int start, int count) {
+            if (listener != null) {
+                listener.onItemsRequested(start, count);
+            }
+        }
+
+        @Override
+        public void onCurrentIndexShifted(int index) {
+            if (listener != null) {
+                listener.onMediaIndexChanged(index);
+            }
+        }
+
+        @Override
+        public void onCurrentItemChanged(boolean sameMedia) {
+            if (!sameMedia || showingPlaceholder) {
+                displayCurrentMedia();
+            }
+        }
+
+        @Override
+        public void onNeighboursChanged() {
+            MediaViewerFragment.this.onNeighboursChanged();
+        }
+
+        @Override
+        public void onPreloadTargetInvalidated() {
+            playbackEngine.cancelPreload();
+        }
+
+        @Override
+        public void onEmpty() {
+            dismiss();
+        }
+    };
 
-    public static MediaViewerFragment newInstance(List<MediaItem> items, int currentIndex, String title, MediaViewerListener listener) {
+    public static MediaViewerFragment newInstance(
+        MediaItemPager items,
+        int currentIndex,
+        String title,
+        MediaViewerConfig config,
+        MediaViewerListener listener
+    ) {
         MediaViewerFragment fragment = new MediaViewerFragment();
-        fragment.mediaItems = items;
-        fragment.currentIndex = currentIndex;
+        fragment.gallery = new GalleryController(items, currentIndex, fragment.galleryCallback);
         fragment.title = title;
+        if (config != null) {
+            fragment.config = config;
+        }
         fragment.listener = listener;
         return fragment;
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setStyle(DialogFragment.STYLE_NO_TITLE, android.R.style.Theme_Black_NoTitleBar_Fullscreen);
         playbackHandler = new Handler(Looper.getMainLooper());
+        metricsCollector = new PlaybackMetricsCollector(metrics -> {
+            if (listener != null) {
+                listener.onItemMetrics(metrics);
+            }
+        });
+        playbackEngine = new ExoPlaybackEngine(
+            new ExoPlayerPool(requireContext(), config.buffering),
+            metricsCollector,
+            new PlaybackEngine.Listener() {
+                @Override
+                public void onPlayerChanged(@Nullable ExoPlayer player) {
+                    exoPlayer = player;
+                }
+
+                @Override
+                public void onPlaybackStateChanged(PlaybackState state) {
+                    if (listener != null) {
+                        listener.onPlaybackStateChanged(state);
+                    }
+                }
+            }
+        );
+        qualityVariantsLoader = new QualityVariantsLoader(item -> {
+            // A parse can finish after the user has moved on to another item
+            MediaItem currentItem = gallery.getCurrentItem();
+            if (currentItem != null && currentItem.path.equals(item.path)) {
+                currentItem.qualityVariants = item.qualityVariants;
+                playbackEngine.setQualityVariants(item.qualityVariants);
+                playbackEngine.updateAutoQuality();
+            }
+        });
         
         // Acquire wake lock to keep screen on
         PowerManager powerManager = (PowerManager) requireContext().getSystemService(Context.POWER_SERVICE);
@@ -234,7 +347,7 @@ public class MediaViewerFragment extends DialogFragment {
                     @Override
                     public void onSwipeLeft() {
                         // Swipe left - next (use existing swipe animation system)
-                        if (currentIndex < mediaItems.size() - 1 && !isSwiping) {
+                        if (gallery.hasNext() && !isSwiping) {
                             startSwipeAnimation(-1, 0); // -1 = left (next)
                         }
                     }
@@ -242,12 +355,13 @@ public class MediaViewerFragment extends DialogFragment {
                     @Override
                     public void onSwipeRight() {
                         // Swipe right - previous (use existing swipe animation system)
-                        if (currentIndex > 0 && !isSwiping) {
+                        if (gallery.hasPrevious() && !isSwiping) {
                             startSwipeAnimation(1, 0); // 1 = right (previous)
                         }
                     }
                 }
             );
+            mediaImageView.setZoomListener(this::onImageZoomChanged);
         }
         videoThumbnail = rootView.findViewById(R.id.video_thumbnail);
         overlayContainer = rootView.findViewById(R.id.overlay_container);
@@ -328,9 +442,12 @@ public class MediaViewerFragment extends DialogFragment {
         textureView.setScaleX(1f);
         textureView.setScaleY(1f);
         
-        // Initialize transform to identity just in case
-        android.graphics.Matrix matrix = new android.graphics.Matrix();
-        textureView.setTransform(matrix);
+        // Starts with an identity transform; keeps one surface for the view's lifetime
+        if (videoSurfaceManager != null) {
+            videoSurfaceManager.release();
+        }
+        videoSurfaceManager = new VideoSurfaceManager(textureView);
+        playbackEngine.setVideoOutput(videoSurfaceManager);
 
         // Add TextureView at index 0 (behind thumbnail)
         videoContainer.addView(textureView, 0);
@@ -396,11 +513,7 @@ public class MediaViewerFragment extends DialogFragment {
     }
 
     private boolean isCurrentItemVideo() {
-        if (mediaItems == null || currentIndex < 0 || currentIndex >= mediaItems.size()) {
-            return false;
-        }
-        MediaItem item = mediaItems.get(currentIndex);
-        return item != null && "VIDEO".equals(item.type);
+        return gallery.isVideoAt(gallery.getCurrentIndex());
     }
 
     private void setupGestureDetector() {
@@ -439,7 +552,7 @@ public class MediaViewerFragment extends DialogFragment {
                         if (Math.abs(diffX) > Math.abs(diffY) && Math.abs(diffX) > 50) {
                             // Don't swipe if user is interacting with controls
                             if (controlsContainer != null && controlsContainer.getVisibility() == View.VISIBLE) {
-                                int[] location = new int[2];
+                                int[] location = touchLocation;
                                 controlsContainer.getLocationOnScreen(location);
                                 float tapY = e1.getY();
                                 if (tapY >= location[1] - 100) {
@@ -451,7 +564,7 @@ public class MediaViewerFragment extends DialogFragment {
                             int direction = diffX > 0 ? 1 : -1; // 1 = right (previous), -1 = left (next)
 
                             // Check if we can swipe in that direction
-                            if ((direction > 0 && currentIndex > 0) || (direction < 0 && currentIndex < mediaItems.size() - 1)) {
+                            if ((direction > 0 && gallery.hasPrevious()) || (direction < 0 && gallery.hasNext())) {
                                 swipeTotalDistance = diffX;
                                 startSwipeAnimation(direction, diffX);
                                 return true;
@@ -475,7 +588,7 @@ public class MediaViewerFragment extends DialogFragment {
                         ) {
                             // Don't swipe if user is interacting with controls
                             if (controlsContainer != null && controlsContainer.getVisibility() == View.VISIBLE) {
-                                int[] location = new int[2];
+                                int[] location = touchLocation;
                                 controlsContainer.getLocationOnScreen(location);
                                 float tapY = e1.getY();
                                 // Check if swipe started in controls area
@@ -511,7 +624,7 @@ public class MediaViewerFragment extends DialogFragment {
                         if (textureView != null && textureView.getVisibility() == View.VISIBLE) {
                             // Check if tap is on controls container - don't toggle in that case
                             if (controlsContainer != null && controlsContainer.getVisibility() == View.VISIBLE) {
-                                int[] location = new int[2];
+                                int[] location = touchLocation;
                                 controlsContainer.getLocationOnScreen(location);
                                 int x = location[0];
                                 int y = location[1];
@@ -528,7 +641,7 @@ public class MediaViewerFragment extends DialogFragment {
                             
                             // Check if tap is on center controls
                             if (centerControls != null && centerControls.getVisibility() == View.VISIBLE) {
-                                int[] location = new int[2];
+                                int[] location = touchLocation;
                                 centerControls.getLocationOnScreen(location);
                                 int x = location[0];
                                 int y = location[1];
@@ -688,7 +801,7 @@ public class MediaViewerFragment extends DialogFragment {
     }
 
     private boolean isPointInsideView(View view, MotionEvent event) {
-        int[] location = new int[2];
+        int[] location = touchLocation;
         view.getLocationOnScreen(location);
         float x = event.getRawX();
         float y = event.getRawY();
@@ -722,9 +835,15 @@ public class MediaViewerFragment extends DialogFragment {
 
                     // Check if size actually changed (e.g. rotation)
                     if (currentWidth != lastContainerWidth || currentHeight != lastContainerHeight) {
+                        boolean firstLayout = lastContainerWidth == 0 || lastContainerHeight == 0;
                         lastContainerWidth = currentWidth;
                         lastContainerHeight = currentHeight;
 
+                        // Decodes now use the viewer's size; prefetch the opened item's neighbours at it
+                        if (firstLayout && currentWidth > 0 && currentHeight > 0) {
+                            prefetchAdjacentImages();
+                        }
+
                         // Recompute video layout on orientation/size change
                         if (exoPlayer != null && textureView != null && textureView.getVisibility() == View.VISIBLE) {
                             androidx.media3.common.VideoSize vs = exoPlayer.getVideoSize();
@@ -754,53 +873,380 @@ public class MediaViewerFragment extends DialogFragment {
         rootView.getViewTreeObserver().addOnGlobalLayoutListener(layoutListener);
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     private void displayCurrentMedia() {
-        if (mediaItems == null || currentIndex < 0 || currentIndex >= mediaItems.size()) {
+        int currentIndex = gallery.getCurrentIndex();
+        if (!gallery.isInRange(currentIndex)) {
             return;
         }
 
-        MediaItem item = mediaItems.get(currentIndex);
+        MediaItem item = gallery.getCurrentItem();
 
-        // Reset quality to Auto for new video
-        if ("VIDEO".equals(item.type)) {
-            currentQuality = "Auto";
-            actualPlayingQuality = null;
-            currentVideoUrl = item.path;
+        // The first item counts from show(), later ones from the swipe settling
+        long requestedAtMs = gallery.isFirstDisplay() && config.shownAtMs > 0 ? config.shownAtMs : android.os.SystemClock.elapsedRealtime();
+        if (item != null && "VIDEO".equals(item.type)) {
+            metricsCollector.beginItem(currentIndex, item.path, requestedAtMs);
+        } else {
+            metricsCollector.finishItem();
+        }
 
-            // Parse HLS playlist if it's an HLS video
-            if (HlsPlaylistParser.isHlsUrl(item.path)) {
-                // Parse quality variants on a background thread
-                new Thread(() -> {
-                    List<QualityVariant> variants = HlsPlaylistParser.parseMasterPlaylist(item.path);
-                    requireActivity()
-                        .runOnUiThread(() -> {
-                            qualityVariants = variants;
-                        });
-                })
-                    .start();
-            } else {
-                qualityVariants.clear();
-            }
+        gallery.markDisplayed();
+
+        // Ask JS for the pages around this position before the user gets there
+        gallery.requestItemsAround();
+        if (item == null) {
+            displayPlaceholder();
+            return;
         }
+        showingPlaceholder = false;
 
         if ("VIDEO".equals(item.type)) {
             releasePlayer();
+            // Reset quality to Auto for new video
+            playbackEngine.resetQuality(item.qualityVariants);
+            currentVideoUrl = item.path;
+            qualityVariantsLoader.load(item);
             resetMediaViews();
             displayVideo(item);
         } else {
+            // Swiped away from a video - drop any parse still pending for it
+            qualityVariantsLoader.cancel();
             displayImage(item);
+            // No video competing for bandwidth - start on the neighbour right away
+            preloadAdjacentVideo();
         }
 
+        prefetchAdjacentImages();
+
         if (listener != null) {
             listener.onMediaIndexChanged(currentIndex);
         }
     }
 
+    /**
+     * Shared Glide request for full-screen media. Display, swipe previews and prefetching all use
+     * the same options and size, so they share one memory cache entry per image.
+     * Images are decoded to fit the screen rather than at camera resolution; zooming in past that
+     * triggers a sharper decode (see {@link #onImageZoomChanged(float)}).
+     */
+    private RequestBuilder<Drawable> fullScreenImageRequest(String path) {
+        return imageRequest(path, fullScreenWidth(), fullScreenHeight());
+    }
+
+    /**
+     * Width full-screen images are decoded to: the viewer's once it has been laid out, the
+     * display's before that. The image show() opens is requested before the first layout, and
+     * must not be decoded at camera resolution.
+     */
+    private int fullScreenWidth() {
+        if (rootView != null && rootView.getWidth() > 0 && rootView.getHeight() > 0) {
+            return rootView.getWidth();
+        }
+        return getResources().getDisplayMetrics().widthPixels;
+    }
+
+    private int fullScreenHeight() {
+        if (rootView != null && rootView.getWidth() > 0 && rootView.getHeight() > 0) {
+            return rootView.getHeight();
+        }
+        return getResources().getDisplayMetrics().heightPixels;
+    }
+
+    private RequestBuilder<Drawable> imageRequest(String path, int width, int height) {
+        return Glide.with(this)
+            .load(path)
+            .dontAnimate()
+            .dontTransform()
+            // Fit inside the box without ever upscaling small images
+            .downsample(DownsampleStrategy.CENTER_INSIDE)
+            // Opaque images use half the memory; Glide still picks hardware bitmaps where it can
+            .format(DecodeFormat.PREFER_RGB_565)
+            .override(width, height);
+    }
+
+    /**
+     * Add detail to the current image once it is magnified beyond its decoded resolution.
+     * Images that fit in {@link TouchImageView#MAX_SCALE} times the screen size are decoded again
+     * at full resolution; larger ones (maps, scans) switch to region-decoded tiles instead.
+     * Done at most once per image, and only if the screen-sized decode was actually downsampled.
+     */
+    private void onImageZoomChanged(float scale) {
+        if (scale <= 1.05f || zoomSourceTarget != null || currentImageUrl == null || rootView == null || mediaImageView == null) {
+            return;
+        }
+        Drawable shown = mediaImageView.getDrawable();
+        int boxWidth = rootView.getWidth();
+        int boxHeight = rootView.getHeight();
+        if (shown == null || boxWidth == 0 || boxHeight == 0) {
+            return;
+        }
+        // Smaller than the screen on both sides means it was decoded at full resolution already
+        if (shown.getIntrinsicWidth() < boxWidth - 1 && shown.getIntrinsicHeight() < boxHeight - 1) {
+            return;
+        }
+
+        int width = (int) Math.min(boxWidth * TouchImageView.MAX_SCALE, ZOOM_DECODE_MAX_DIMENSION);
+        int height = (int) Math.min(boxHeight * TouchImageView.MAX_SCALE, ZOOM_DECODE_MAX_DIMENSION);
+        final String path = currentImageUrl;
+        zoomSourceTarget = Glide.with(this)
+            .asFile()
+            .load(path)
+            .into(
+                new CustomTarget<File>() {
+                    @Override
+                    public void onResourceReady(@NonNull File file, @Nullable Transition<? super File> transition) {
+                        final CustomTarget<File> request = this;
+                        TiledImageSource.open(file, source -> {
+                            if (zoomSourceTarget != request || !path.equals(currentImageUrl) || mediaImageView == null) {
+                                // Moved on to another image meanwhile
+                                if (source != null) {
+                                    source.release();
+                                }
+                                return;
+                            }
+                            if (source != null && (source.getWidth() > width || source.getHeight() > height)) {
+                                Log.d("MediaViewerFragment", "Tiling " + path + " (" + source.getWidth() + "x" + source.getHeight() + ")");
+                                tiledImageSource = source;
+                                mediaImageView.setTiledSource(source);
+                            } else {
+                                if (source != null) {
+                                    source.release();
+                                }
+                                startZoomDecode(path, width, height);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onLoadFailed(@Nullable Drawable errorDrawable) {
+                        if (zoomSourceTarget == this && path.equals(currentImageUrl)) {
+                            startZoomDecode(path, width, height);
+                        }
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {}
+                }
+            );
+    }
+
+    private void startZoomDecode(String path, int width, int height) {
+        Log.d("MediaViewerFragment", "Decoding " + path + " for zoom at up to " + width + "x" + height);
+        zoomDecodeTarget = imageRequest(path, width, height)
+            .into(
+                new CustomTarget<Drawable>() {
+                    @Override
+                    public void onResourceReady(@NonNull Drawable resource, @Nullable Transition<? super Drawable> transition) {
+                        if (mediaImageView != null && path.equals(currentImageUrl)) {
+                            mediaImageView.replaceDrawableKeepingZoom(resource);
+                        }
+                    }
+
+                    @Override
+                    public void onLoadCleared(@Nullable Drawable placeholder) {
+                        // Only cleared after the view has moved on to another image
+                    }
+                }
+            );
+    }
+
+    private void cancelZoomDecode() {
+        if (tiledImageSource != null) {
+            if (mediaImageView != null) {
+                mediaImageView.setTiledSource(null);
+            }
+            tiledImageSource.release();
+            tiledImageSource = null;
+        }
+        if (zoomSourceTarget != null) {
+            Glide.with(this).clear(zoomSourceTarget);
+            zoomSourceTarget = null;
+        }
+        if (zoomDecodeTarget != null) {
+            Glide.with(this).clear(zoomDecodeTarget);
+            zoomDecodeTarget = null;
+        }
+    }
+
+    /**
+     * Warm Glide's memory cache with the images (and video thumbnails) around the current item,
+     * nearest first and the direction of travel first. Prefetches for items that are no longer
+     * neighbours are cancelled.
+     */
+    private void prefetchAdjacentImages() {
+        // Before the first layout; the layout listener starts prefetching at the viewer's size
+        if (rootView == null || rootView.getWidth() == 0 || rootView.getHeight() == 0) {
+            return;
+        }
+
+        Map<String, Target<Drawable>> previous = new LinkedHashMap<>(imagePrefetchTargets);
+        imagePrefetchTargets.clear();
+        for (int rank = 0; rank < config.imagePrefetchCount * 2; rank++) {
+            prefetchImageAt(gallery.neighbourIndex(rank), previous);
+        }
+        for (Target<Drawable> stale : previous.values()) {
+            Glide.with(this).clear(stale);
+        }
+    }
+
+    private void prefetchImageAt(int index, Map<String, Target<Drawable>> previous) {
+        MediaItem item = gallery.getItem(index);
+        if (item == null) {
+            return;
+        }
+        String path = "VIDEO".equals(item.type) ? item.thumbnail : item.path;
+        if (path == null || path.isEmpty() || imagePrefetchTargets.containsKey(path)) {
+            return;
+        }
+        Target<Drawable> target = previous.remove(path);
+        if (target == null) {
+            target = fullScreenImageRequest(path).preload(fullScreenWidth(), fullScreenHeight());
+        }
+        imagePrefetchTargets.put(path, target);
+    }
+
+    private void cancelImagePrefetch() {
+        for (Target<Drawable> target : imagePrefetchTargets.values()) {
+            Glide.with(this).clear(target);
+        }
+        imagePrefetchTargets.clear();
+    }
+
+    /**
+     * Shown while the current position of a paged album hasn't been provided by JS yet.
+     * {@link #provideItems(int, List)} replaces it once the item arrives.
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    private void displayPlaceholder() {
+        showingPlaceholder = true;
+        qualityVariantsLoader.cancel();
+        releasePlayer();
+        resetMediaViews();
+        if (mediaImageView != null) {
+            mediaImageView.setVisibility(View.GONE);
+        }
+        showLoadingSpinner(true);
+
+        if (listener != null) {
+            listener.onMediaIndexChanged(gallery.getCurrentIndex());
+        }
+    }
+
+    /**
+     * Items for a paged album, provided by JS in response to an itemsRequested event.
+     */
+    public void provideItems(int start, List<MediaItem> items) {
+        if (isSwiping) {
+            pendingItemChanges.add(() -> provideItems(start, items));
+            return;
+        }
+        if (!gallery.provide(start, items)) {
+            return;
+        }
+        Log.d("MediaViewerFragment", "Received " + items.size() + " items at " + start);
+
+        if (showingPlaceholder && gallery.isLoaded(gallery.getCurrentIndex())) {
+            showLoadingSpinner(false);
+            displayCurrentMedia();
+        } else if (!showingPlaceholder) {
+            onNeighboursChanged();
+        }
+    }
+
+    /**
+     * Add items at the end of the list. The current item and player are untouched.
+     */
+    public void appendItems(List<MediaItem> items) {
+        if (isSwiping) {
+            pendingItemChanges.add(() -> appendItems(items));
+            return;
+        }
+        gallery.append(items);
+    }
+
+    /**
+     * Insert items before {@code index}. If they land before the current item, the index shifts
+     * but the same item keeps playing.
+     */
+    public boolean insertItems(int index, List<MediaItem> items) {
+        if (index < 0 || index > gallery.size()) {
+            return false;
+        }
+        if (isSwiping) {
+            pendingItemChanges.add(() -> insertItems(index, items));
+            return true;
+        }
+        return gallery.insert(index, items);
+    }
+
+    /**
+     * Remove {@code count} items starting at {@code index}. Only removing the current item
+     * changes what is displayed; the viewer closes when no items are left.
+     */
+    public boolean removeItems(int index, int count) {
+        if (index < 0 || count < 0 || index + count > gallery.size()) {
+            return false;
+        }
+        if (isSwiping) {
+            pendingItemChanges.add(() -> removeItems(index, count));
+            return true;
+        }
+        return gallery.remove(index, count);
+    }
+
+    /**
+     * Replace the item at {@code index}. The current item is only reloaded if its path or type changed.
+     */
+    public boolean updateItem(int index, MediaItem item) {
+        if (!gallery.isInRange(index)) {
+            return false;
+        }
+        if (isSwiping) {
+            pendingItemChanges.add(() -> updateItem(index, item));
+            return true;
+        }
+        return gallery.update(index, item);
+    }
+
+    private void onNeighboursChanged() {
+        gallery.requestItemsAround();
+        prefetchAdjacentImages();
+        if (!showingPlaceholder && gallery.getPreloadTargetIndex() < 0) {
+            // A neighbour may have just arrived - preload it unless the current video is still starting
+            if (!isCurrentItemVideo() || (exoPlayer != null && exoPlayer.getPlaybackState() == Player.STATE_READY)) {
+                preloadAdjacentVideo();
+            }
+        }
+    }
+
+    /**
+     * Prepare the next video in the direction the user is moving on the pool's warm player,
+     * falling back to the other neighbour. Called once the current item no longer needs the network
+     * for its own startup.
+     */
+    private void preloadAdjacentVideo() {
+        if (!config.preloadAdjacent || playbackEngine == null) {
+            return;
+        }
+
+        int target = gallery.adjacentVideoIndex();
+        if (target < 0) {
+            return;
+        }
+        if (target != gallery.getPreloadTargetIndex()) {
+            Log.d("MediaViewerFragment", "Preloading adjacent video at index " + target);
+        }
+        gallery.setPreloadTargetIndex(target);
+        playbackEngine.preload(gallery.getItem(target).path, config.preloadDurationMs, config.preloadMaxBytes);
+    }
+
     private void resetMediaViews() {
         if (textureView != null) {
-            textureView.setSurfaceTextureListener(null);
             textureView.setVisibility(View.GONE); // better than alpha
         }
+        if (videoSurfaceManager != null) {
+            videoSurfaceManager.cancelPending();
+        }
         if (videoThumbnail != null) {
             // videoThumbnail.setImageDrawable(null);
             videoThumbnail.setVisibility(View.GONE);
@@ -831,7 +1277,7 @@ public class MediaViewerFragment extends DialogFragment {
             Log.d("MediaViewerFragment", "videoThumbnail: " + videoThumbnail.toString() + "item.thumbnail: " + item.thumbnail);
             if (item.thumbnail != null && !item.thumbnail.isEmpty()) {
                 videoThumbnail.setVisibility(View.VISIBLE);
-                Glide.with(this).load(item.thumbnail).into(videoThumbnail);
+                fullScreenImageRequest(item.thumbnail).into(videoThumbnail);
             } else {
                 videoThumbnail.setVisibility(View.GONE);
             }
@@ -842,84 +1288,24 @@ public class MediaViewerFragment extends DialogFragment {
             controlsVisible = true;
         }
 
-        TextureView.SurfaceTextureListener textureListener = new TextureView.SurfaceTextureListener() {
-            @Override
-            public void onSurfaceTextureAvailable(@NonNull android.graphics.SurfaceTexture surface, int width, int height) {
-                preparePlayerWithSurface(item, surface);
-            }
-
-            @Override
-            public void onSurfaceTextureSizeChanged(@NonNull android.graphics.SurfaceTexture surface, int width, int height) {
-                // Don't update aspect ratio here - use video size from ExoPlayer instead
-                // This callback gives surface texture size, not video size
-            }
-
-            @Override
-            public boolean onSurfaceTextureDestroyed(@NonNull android.graphics.SurfaceTexture surface) {
-                if (exoPlayer != null) {
-                    exoPlayer.clearVideoSurface();
-                }
-                releaseVideoSurface();
-                return true;
-            }
-
-            @Override
-            public void onSurfaceTextureUpdated(@NonNull android.graphics.SurfaceTexture surface) {
-                // No-op
-            }
-        };
-
-        textureView.setSurfaceTextureListener(textureListener);
-
-        if (textureView.isAvailable()) {
-            preparePlayerWithSurface(item, textureView.getSurfaceTexture());
-        }
-    }
-
-    private void preparePlayerWithSurface(MediaItem item, @Nullable android.graphics.SurfaceTexture surfaceTexture) {
-        preparePlayerWithSurface(item, surfaceTexture, 0L, true);
+        preparePlayerWithSurface(item, 0L, true);
     }
 
-    private void preparePlayerWithSurface(
-        MediaItem item,
-        @Nullable android.graphics.SurfaceTexture surfaceTexture,
-        long startPositionMs,
-        boolean playWhenReady
-    ) {
-        if (surfaceTexture == null) {
+    /**
+     * Set up the player for {@code item} on the shared video surface, now or once it exists.
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    private void preparePlayerWithSurface(MediaItem item, long startPositionMs, boolean playWhenReady) {
+        if (videoSurfaceManager == null) {
             return;
         }
-        Surface surface = new Surface(surfaceTexture);
-        releaseVideoSurface();
-        videoSurface = surface;
-        setupExoPlayer(surface, item, startPositionMs, playWhenReady);
-    }
-
-    private void releaseVideoSurface() {
-        if (videoSurface != null) {
-            videoSurface.release();
-            videoSurface = null;
-        }
-    }
-
-    @UnstableApi
-    private void setupExoPlayer(Surface surface, MediaItem item) {
-        setupExoPlayer(surface, item, 0L, true);
+        videoSurfaceManager.whenAvailable(() -> setupExoPlayer(item, startPositionMs, playWhenReady));
     }
 
     @UnstableApi
-    private void setupExoPlayer(Surface surface, MediaItem item, long startPositionMs, boolean playWhenReady) {
-        // Release existing player if any
-        if (exoPlayer != null) {
-            exoPlayer.release();
-            exoPlayer = null;
-        }
-
-        // Set up ExoPlayer
-        exoPlayer = new ExoPlayer.Builder(requireContext()).build();
-
+    private void setupExoPlayer(MediaItem item, long startPositionMs, boolean playWhenReady) {
         // Set up player listeners
-        exoPlayer.addListener(
+        Player.Listener playerListener =
             new Player.Listener() {
                 @Override
                 public void onPlaybackStateChanged(int playbackState) {
@@ -931,8 +1317,6 @@ public class MediaViewerFragment extends DialogFragment {
                         updatePlayPauseButton(false);
                         showLoadingSpinner(false);
                         showControls(); // Show controls when playback ends
-                        // Update current quality being played if in auto mode
-                        updateAutoQuality();
                     } else if (playbackState == Player.STATE_BUFFERING) {
                         // Video is buffering - show loading spinner
                         Log.d("MediaViewerFragment", "onPlaybackStateChanged: STATE_BUFFERING");
@@ -973,10 +1357,11 @@ public class MediaViewerFragment extends DialogFragment {
                             ); // Small delay to skip the first frame
                         }
 
-                        // Update current quality being played if in auto mode
-                        // Use a delay to ensure track information is available
-                        playbackHandler.postDelayed(() -> updateAutoQuality(), 500);
-                        playbackHandler.postDelayed(() -> updateAutoQuality(), 1500);
+                        // Resolve the Auto label now; later switches arrive through the analytics listener
+                        playbackEngine.updateAutoQuality();
+
+                        // The current video has started - use spare bandwidth for the neighbour
+                        preloadAdjacentVideo();
                     } else {
                         playbackEnded = false;
                     }
@@ -1005,18 +1390,6 @@ public class MediaViewerFragment extends DialogFragment {
                     }
                 }
 
-                @Override
-                public void onTracksChanged(Tracks tracks) {
-                    // Track selection changed - update quality detection for auto mode
-                    if ("Auto".equals(currentQuality)) {
-                        Log.d("MediaViewerFragment", "Tracks changed, updating quality");
-                        // Check multiple times to catch quality changes during adaptive streaming
-                        playbackHandler.postDelayed(() -> updateAutoQuality(), 300);
-                        playbackHandler.postDelayed(() -> updateAutoQuality(), 800);
-                        playbackHandler.postDelayed(() -> updateAutoQuality(), 1500);
-                    }
-                }
-
                 @Override
                 public void onVideoSizeChanged(androidx.media3.common.VideoSize videoSize) {
                     // Video size changed - this happens when quality changes
@@ -1024,52 +1397,28 @@ public class MediaViewerFragment extends DialogFragment {
                         Log.d("MediaViewerFragment", "Video size changed to: " + videoSize.width + "x" + videoSize.height);
                         // Update video layout when video size changes (e.g. quality change)
                         updateTextureViewAspectRatio(videoSize.width, videoSize.height);
-
-                        // Check quality if in Auto mode
-                        if ("Auto".equals(currentQuality)) {
-                            // Check quality immediately and again after a delay to catch changes
-                            updateAutoQuality();
-                            playbackHandler.postDelayed(() -> updateAutoQuality(), 500);
-                        }
                     }
                 }
                 
+                @Override
+                public void onTimelineChanged(Timeline timeline, int reason) {
+                    // Take quality variants from the multivariant playlist the player just loaded
+                    Object manifest = exoPlayer != null ? exoPlayer.getCurrentManifest() : null;
+                    if (manifest instanceof HlsManifest && item.path.equals(currentVideoUrl)) {
+                        qualityVariantsLoader.onManifestLoaded(item, (HlsManifest) manifest);
+                    }
+                }
+
                 @Override
                 public void onPlayerError(androidx.media3.common.PlaybackException error) {
                     Log.e("MediaViewerFragment", "Player error: " + error.getMessage(), error);
+                    qualityVariantsLoader.onPlayerError();
                     handlePlayerError(error);
                 }
-            }
-        );
+            };
 
-        
-        // Ensure the surface is properly attached
-        if (surface != null && surface.isValid()) {
-            exoPlayer.setVideoSurface(surface);
-        }
-
-        androidx.media3.common.MediaItem mediaItem = androidx.media3.common.MediaItem.fromUri(item.path);
-        exoPlayer.setMediaItem(mediaItem);
-        exoPlayer.setPlaybackSpeed(currentPlaybackSpeed);
-        exoPlayer.prepare();
-        if (startPositionMs > 0) {
-            exoPlayer.seekTo(startPositionMs);
-        }
-        exoPlayer.setPlayWhenReady(playWhenReady);
-
-        // If HLS and no quality variants yet, parse them in background
-        if ((item.qualityVariants == null || item.qualityVariants.isEmpty()) && HlsPlaylistParser.isHlsUrl(item.path)) {
-            new Thread(() -> {
-                List<QualityVariant> variants = HlsPlaylistParser.parseMasterPlaylist(item.path);
-                if (variants != null && !variants.isEmpty()) {
-                    requireActivity()
-                        .runOnUiThread(() -> {
-                            item.qualityVariants = variants;
-                        });
-                }
-            })
-                .start();
-        }
+        // Reuses the warm player when possible instead of building a new one
+        playbackEngine.start(item.path, startPositionMs, playWhenReady, playerListener);
 
         // Show controls initially, then auto-hide
         showControls();
@@ -1109,6 +1458,28 @@ public class MediaViewerFragment extends DialogFragment {
         }
     }
 
+    /**
+     * Dialog showing {@code dialogView} as a floating sheet that slides up from the bottom.
+     */
+    private AlertDialog createBottomSheetDialog(View dialogView) {
+        AlertDialog dialog = new AlertDialog.Builder(requireContext()).setView(dialogView).create();
+        Window window = dialog.getWindow();
+        if (window != null) {
+            // Transparent background so rounded corners show properly
+            window.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
+            WindowManager.LayoutParams params = window.getAttributes();
+            params.gravity = Gravity.BOTTOM;
+            params.width = WindowManager.LayoutParams.MATCH_PARENT;
+            params.horizontalMargin = 0;
+            params.verticalMargin = 0;
+            // 16dp above the bottom edge for a floating effect
+            params.y = (int) (16 * requireContext().getResources().getDisplayMetrics().density);
+            window.setAttributes(params);
+            window.setWindowAnimations(R.style.DialogBottomAnimation);
+        }
+        return dialog;
+    }
+
     private void showSettingsPopup() {
         // Inflate custom layout
         LayoutInflater inflater = LayoutInflater.from(requireContext());
@@ -1129,6 +1500,7 @@ public class MediaViewerFragment extends DialogFragment {
         }
         
         // Set current speed value
+        float currentPlaybackSpeed = playbackEngine.getPlaybackSpeed();
         if (speedValue != null) {
             String speedDisplay;
             if (currentPlaybackSpeed == (int) currentPlaybackSpeed) {
@@ -1146,31 +1518,7 @@ public class MediaViewerFragment extends DialogFragment {
             speedValue.setText(speedDisplay);
         }
 
-        // Create and show dialog with custom view
-        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
-        builder.setView(dialogView);
-        AlertDialog settingsDialog = builder.create();
-        
-        // Configure window to appear at bottom with slide-up animation
-        Window window = settingsDialog.getWindow();
-        if (window != null) {
-            // Set transparent background so rounded corners show properly
-            window.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
-            
-            // Set window layout params to position at bottom with margin
-            WindowManager.LayoutParams params = window.getAttributes();
-            params.gravity = Gravity.BOTTOM;
-            params.width = WindowManager.LayoutParams.MATCH_PARENT;
-            params.horizontalMargin = 0;
-            params.verticalMargin = 0;
-            // Add bottom margin for floating effect (in pixels, 16dp)
-            int bottomMargin = (int) (16 * requireContext().getResources().getDisplayMetrics().density);
-            params.y = bottomMargin;
-            window.setAttributes(params);
-            
-            // Set window animation
-            window.setWindowAnimations(R.style.DialogBottomAnimation);
-        }
+        AlertDialog settingsDialog = createBottomSheetDialog(dialogView);
         
         // Set click listeners for each item
         itemQuality.setOnClickListener(v -> {
@@ -1222,7 +1570,7 @@ public class MediaViewerFragment extends DialogFragment {
                     textView.setBackgroundColor(Color.TRANSPARENT);
 
                     // Highlight current selection
-                    if (Math.abs(speedValues[position] - currentPlaybackSpeed) < 0.01f) {
+                    if (Math.abs(speedValues[position] - playbackEngine.getPlaybackSpeed()) < 0.01f) {
                         textView.setTextColor(Color.parseColor("#4CAF50")); // Green for selected
                     }
                 }
@@ -1233,48 +1581,17 @@ public class MediaViewerFragment extends DialogFragment {
 
         listView.setAdapter(adapter);
 
-        // Create and show dialog with custom view
-        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
-        builder.setView(dialogView);
-        AlertDialog speedDialog = builder.create();
-        
-        // Configure window to appear at bottom with slide-up animation
-        Window window = speedDialog.getWindow();
-        if (window != null) {
-            // Set transparent background so rounded corners show properly
-            window.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
-            
-            // Set window layout params to position at bottom with margin
-            WindowManager.LayoutParams params = window.getAttributes();
-            params.gravity = Gravity.BOTTOM;
-            params.width = WindowManager.LayoutParams.MATCH_PARENT;
-            params.horizontalMargin = 0;
-            params.verticalMargin = 0;
-            // Add bottom margin for floating effect (in pixels, 16dp)
-            int bottomMargin = (int) (16 * requireContext().getResources().getDisplayMetrics().density);
-            params.y = bottomMargin;
-            window.setAttributes(params);
-            
-            // Set window animation
-            window.setWindowAnimations(R.style.DialogBottomAnimation);
-        }
+        AlertDialog speedDialog = createBottomSheetDialog(dialogView);
         
         // Set click listener
         listView.setOnItemClickListener((parent, view, position, id) -> {
             speedDialog.dismiss();
-            setPlaybackSpeed(speedValues[position]);
+            playbackEngine.setPlaybackSpeed(speedValues[position]);
         });
         
         speedDialog.show();
     }
 
-    private void setPlaybackSpeed(float speed) {
-        currentPlaybackSpeed = speed;
-        if (exoPlayer != null) {
-            exoPlayer.setPlaybackSpeed(speed);
-        }
-    }
-
     private void toggleCaptions() {
         captionsEnabled = !captionsEnabled;
         if (exoPlayer != null) {
@@ -1339,15 +1656,12 @@ public class MediaViewerFragment extends DialogFragment {
             builder.setMessage("Failed to load video. Attempt " + errorRetryCount + " of " + MAX_RETRY_COUNT + "\n\n" + error.getMessage());
             builder.setPositiveButton("Retry", (dialog, which) -> {
                 // Retry playback
-                MediaItem currentItem = mediaItems.get(currentIndex);
+                MediaItem currentItem = gallery.getCurrentItem();
                 if (currentItem != null && "VIDEO".equals(currentItem.type)) {
-                    android.graphics.SurfaceTexture surfaceTexture = textureView != null ? textureView.getSurfaceTexture() : null;
-                    if (surfaceTexture != null) {
-                        long currentPosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
-                        boolean wasPlaying = exoPlayer != null && exoPlayer.isPlaying();
-                        releasePlayer(false);
-                        preparePlayerWithSurface(currentItem, surfaceTexture, currentPosition, wasPlaying);
-                    }
+                    long currentPosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
+                    boolean wasPlaying = exoPlayer != null && exoPlayer.isPlaying();
+                    releasePlayer(false);
+                    preparePlayerWithSurface(currentItem, currentPosition, wasPlaying);
                 }
             });
             builder.setNegativeButton("Cancel", (dialog, which) -> {
@@ -1379,13 +1693,10 @@ public class MediaViewerFragment extends DialogFragment {
             builder.setPositiveButton("Try Again", (dialog, which) -> {
                 // Reset retry count and try again
                 errorRetryCount = 0;
-                MediaItem currentItem = mediaItems.get(currentIndex);
+                MediaItem currentItem = gallery.getCurrentItem();
                 if (currentItem != null && "VIDEO".equals(currentItem.type)) {
-                    android.graphics.SurfaceTexture surfaceTexture = textureView != null ? textureView.getSurfaceTexture() : null;
-                    if (surfaceTexture != null) {
-                        releasePlayer(false);
-                        preparePlayerWithSurface(currentItem, surfaceTexture, 0L, true);
-                    }
+                    releasePlayer(false);
+                    preparePlayerWithSurface(currentItem, 0L, true);
                 }
             });
             builder.setNegativeButton("Close", (dialog, which) -> {
@@ -1412,7 +1723,7 @@ public class MediaViewerFragment extends DialogFragment {
     }
 
     private void showQualitySelector() {
-        MediaItem currentItem = mediaItems.get(currentIndex);
+        MediaItem currentItem = gallery.getCurrentItem();
         if (currentItem == null || currentItem.qualityVariants == null || currentItem.qualityVariants.isEmpty()) {
             // No quality variants available
             return;
@@ -1459,10 +1770,7 @@ public class MediaViewerFragment extends DialogFragment {
                     textView.setBackgroundColor(Color.TRANSPARENT);
 
                     // Highlight current selection
-                    String quality = qualityLabels[position];
-                    if (
-                        quality.equals(currentQuality) || (quality.equals("Auto") && (currentQuality == null || currentQuality.equals("Auto")))
-                    ) {
+                    if (qualityLabels[position].equals(playbackEngine.getCurrentQuality())) {
                         textView.setTextColor(Color.parseColor("#4CAF50")); // Green for selected
                     }
                 }
@@ -1473,31 +1781,7 @@ public class MediaViewerFragment extends DialogFragment {
 
         listView.setAdapter(adapter);
 
-        // Create and show dialog with custom view
-        AlertDialog.Builder builder = new AlertDialog.Builder(requireContext());
-        builder.setView(dialogView);
-        AlertDialog qualityDialog = builder.create();
-        
-        // Configure window to appear at bottom with slide-up animation
-        Window window = qualityDialog.getWindow();
-        if (window != null) {
-            // Set transparent background so rounded corners show properly
-            window.setBackgroundDrawable(new ColorDrawable(Color.TRANSPARENT));
-            
-            // Set window layout params to position at bottom with margin
-            WindowManager.LayoutParams params = window.getAttributes();
-            params.gravity = Gravity.BOTTOM;
-            params.width = WindowManager.LayoutParams.MATCH_PARENT;
-            params.horizontalMargin = 0;
-            params.verticalMargin = 0;
-            // Add bottom margin for floating effect (in pixels, 16dp)
-            int bottomMargin = (int) (16 * requireContext().getResources().getDisplayMetrics().density);
-            params.y = bottomMargin;
-            window.setAttributes(params);
-            
-            // Set window animation
-            window.setWindowAnimations(R.style.DialogBottomAnimation);
-        }
+        AlertDialog qualityDialog = createBottomSheetDialog(dialogView);
         
         // Set click listener
         listView.setOnItemClickListener((parent, view, position, id) -> {
@@ -1573,260 +1857,12 @@ public class MediaViewerFragment extends DialogFragment {
             textureView.setScaleX(1f);
             textureView.setScaleY(1f);
 
-            android.graphics.Matrix matrix = new android.graphics.Matrix();
             float scaleX = (float) newWidth / viewWidth;
             float scaleY = (float) newHeight / viewHeight;
-            matrix.setScale(scaleX, scaleY);
-            matrix.postTranslate(xOffset, yOffset);
-
-            textureView.setTransform(matrix);
-        });
-    }
-
-    private void updateAutoQuality() {
-        // Update actual playing quality when in Auto mode
-        if (exoPlayer == null || !"Auto".equals(currentQuality)) {
-            return;
-        }
-
-        try {
-            // First, try to get resolution from the currently selected track (most accurate)
-            int width = 0;
-            int height = 0;
-            String selectedTrackId = null;
-
-            Tracks tracks = exoPlayer.getCurrentTracks();
-            if (tracks != null && tracks.getGroups().size() > 0) {
-                // Check all video track groups to find the selected one
-                for (Tracks.Group trackGroup : tracks.getGroups()) {
-                    if (trackGroup.getType() == C.TRACK_TYPE_VIDEO && trackGroup.length > 0) {
-                        // Check all tracks in the group to find which one is selected
-                        for (int i = 0; i < trackGroup.length; i++) {
-                            if (trackGroup.isTrackSelected(i)) {
-                                androidx.media3.common.Format format = trackGroup.getTrackFormat(i);
-                                if (format.width > 0 && format.height > 0) {
-                                    width = format.width;
-                                    height = format.height;
-                                    selectedTrackId = format.id != null ? format.id : "";
-                                    Log.d(
-                                        "MediaViewerFragment",
-                                        "Selected track: " +
-                                        width +
-                                        "x" +
-                                        height +
-                                        " (ID: " +
-                                        selectedTrackId +
-                                        ", bitrate: " +
-                                        format.bitrate +
-                                        ", codecs: " +
-                                        format.codecs +
-                                        ")"
-                                    );
-                                    break;
-                                }
-                            }
-                        }
-                        if (width > 0 && height > 0) {
-                            break;
-                        }
-                    }
-                }
-            }
-
-            // Fallback to ExoPlayer's video size if track info not available
-            // This is important for adaptive streaming where track selection might not be immediately available
-            if (width == 0 || height == 0) {
-                androidx.media3.common.VideoSize videoSize = exoPlayer.getVideoSize();
-                width = videoSize.width;
-                height = videoSize.height;
-                if (width > 0 && height > 0) {
-                    Log.d("MediaViewerFragment", "Using video size fallback: " + width + "x" + height);
-                }
-            }
-
-            if (width > 0 && height > 0) {
-                MediaItem currentItem = mediaItems.get(currentIndex);
-                // Use qualityVariants from MediaItem, or fallback to instance variable
-                List<QualityVariant> variantsToUse = null;
-                if (currentItem != null && currentItem.qualityVariants != null && !currentItem.qualityVariants.isEmpty()) {
-                    variantsToUse = currentItem.qualityVariants;
-                } else if (qualityVariants != null && !qualityVariants.isEmpty()) {
-                    variantsToUse = qualityVariants;
-                }
-
-                if (variantsToUse != null && !variantsToUse.isEmpty()) {
-                    // Try to match video size with quality variants
-                    String detectedQuality = detectQualityFromSize(width, height, variantsToUse);
-                    if (detectedQuality != null) {
-                        if (!detectedQuality.equals(actualPlayingQuality)) {
-                            String oldQuality = actualPlayingQuality != null ? actualPlayingQuality : "none";
-                            actualPlayingQuality = detectedQuality;
-                            Log.d(
-                                "MediaViewerFragment",
-                                "Auto quality changed: " +
-                                oldQuality +
-                                " -> " +
-                                detectedQuality +
-                                " (Resolution: " +
-                                width +
-                                "x" +
-                                height +
-                                ", TrackID: " +
-                                selectedTrackId +
-                                ")"
-                            );
-                        }
-                    } else {
-                        Log.d(
-                            "MediaViewerFragment",
-                            "Could not detect quality for resolution: " + width + "x" + height + " (TrackID: " + selectedTrackId + ")"
-                        );
-                    }
-                } else {
-                    Log.d("MediaViewerFragment", "No quality variants available for matching");
-                }
-            } else {
-                Log.d("MediaViewerFragment", "No valid video dimensions available");
-            }
-        } catch (Exception e) {
-            // Ignore errors in quality detection
-            Log.e("MediaViewerFragment", "Error detecting quality: " + e.getMessage(), e);
-        }
-    }
-
-    private String detectQualityFromSize(int width, int height, List<QualityVariant> variants) {
-        if (variants == null || variants.isEmpty()) {
-            Log.d("MediaViewerFragment", "No variants to match against");
-            return null;
-        }
-
-        Log.d("MediaViewerFragment", "Detecting quality for " + width + "x" + height + " from " + variants.size() + " variants");
-
-        // First, try to match by extracting actual resolution from variant labels
-        // and comparing directly with the detected resolution
-        QualityVariant bestMatch = null;
-        int minHeightDiff = Integer.MAX_VALUE;
-        int totalPixels = width * height;
-
-        // Try exact or very close height match first
-        for (QualityVariant variant : variants) {
-            String label = variant.label;
-            int variantHeight = extractHeightFromLabel(label);
-
-            if (variantHeight > 0) {
-                // Match by height (more accurate for standard resolutions)
-                int heightDiff = Math.abs(variantHeight - height);
-                if (heightDiff < minHeightDiff) {
-                    minHeightDiff = heightDiff;
-                    bestMatch = variant;
-                }
-
-                // If we find an exact or very close match (within 10 pixels), use it immediately
-                if (heightDiff <= 10) {
-                    Log.d("MediaViewerFragment", "Found exact/close height match: " + label + " (" + variantHeight + "p)");
-                    return variant.label;
-                }
-            }
-        }
-
-        // If we found a reasonable match (within 50 pixels), use it
-        if (bestMatch != null && minHeightDiff <= 50) {
-            Log.d("MediaViewerFragment", "Found reasonable height match: " + bestMatch.label + " (diff: " + minHeightDiff + ")");
-            return bestMatch.label;
-        }
-
-        // Fallback: match by pixel count and height ranges (for non-standard labels or when height matching isn't precise)
-        // IMPORTANT: Check patterns in order from HIGHEST to LOWEST quality to avoid incorrect matches
-        // Also, only match if the detected resolution actually falls within the expected range for that quality
-        QualityVariant patternMatch = null;
-        
-        // Check 4K first (highest quality)
-        for (QualityVariant variant : variants) {
-            String label = variant.label.toLowerCase();
-            if ((label.contains("4k") || label.contains("2160")) && height >= 2000 && totalPixels >= 3500000) {
-                Log.d("MediaViewerFragment", "Matched 4K pattern: " + variant.label);
-                return variant.label;
+            if (videoSurfaceManager != null) {
+                videoSurfaceManager.setContentTransform(scaleX, scaleY, xOffset, yOffset);
             }
-        }
-        
-        // Check 1080p
-        for (QualityVariant variant : variants) {
-            String label = variant.label.toLowerCase();
-            if ((label.contains("1080") || label.contains("full hd")) && height >= 1000 && height < 2000 && totalPixels >= 1800000 && totalPixels < 3500000) {
-                Log.d("MediaViewerFragment", "Matched 1080p pattern: " + variant.label);
-                return variant.label;
-            }
-        }
-        
-        // Check 720p
-        for (QualityVariant variant : variants) {
-            String label = variant.label.toLowerCase();
-            if ((label.contains("720") || label.contains("hd")) && height >= 650 && height < 1000 && totalPixels >= 800000 && totalPixels < 1800000) {
-                Log.d("MediaViewerFragment", "Matched 720p pattern: " + variant.label);
-                return variant.label;
-            }
-        }
-        
-        // Check 480p
-        for (QualityVariant variant : variants) {
-            String label = variant.label.toLowerCase();
-            if ((label.contains("480") || label.contains("sd")) && height >= 400 && height < 650 && totalPixels >= 300000 && totalPixels < 800000) {
-                Log.d("MediaViewerFragment", "Matched 480p pattern: " + variant.label);
-                return variant.label;
-            }
-        }
-        
-        // Check 360p last (lowest quality) - only if resolution actually matches
-        for (QualityVariant variant : variants) {
-            String label = variant.label.toLowerCase();
-            if (label.contains("360") && height >= 300 && height < 400 && totalPixels >= 100000 && totalPixels < 300000) {
-                Log.d("MediaViewerFragment", "Matched 360p pattern: " + variant.label);
-                return variant.label;
-            }
-        }
-
-        // Last resort: return the variant closest in height (even if difference is larger)
-        // This ensures we always return something if we have variants, but only if height-based matching found something
-        if (bestMatch != null) {
-            Log.d("MediaViewerFragment", "Using best match by height: " + bestMatch.label + " (diff: " + minHeightDiff + ")");
-            return bestMatch.label;
-        }
-
-        Log.d("MediaViewerFragment", "Could not match any variant");
-        return null;
-    }
-
-    private int extractHeightFromLabel(String label) {
-        // Extract height value from labels like "720p", "1080p", "2160p", etc.
-        label = label.toLowerCase().trim();
-
-        // Try to find a number followed by 'p' (e.g., "720p", "1080p")
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile("(\\d+)\\s*p");
-        java.util.regex.Matcher matcher = pattern.matcher(label);
-        if (matcher.find()) {
-            try {
-                return Integer.parseInt(matcher.group(1));
-            } catch (NumberFormatException e) {
-                // Ignore
-            }
-        }
-
-        // Try to find just a number (might be height)
-        pattern = java.util.regex.Pattern.compile("\\b(\\d{3,4})\\b");
-        matcher = pattern.matcher(label);
-        if (matcher.find()) {
-            try {
-                int value = Integer.parseInt(matcher.group(1));
-                // Common video heights: 360, 480, 720, 1080, 2160
-                if (value == 360 || value == 480 || value == 720 || value == 1080 || value == 2160 || (value >= 300 && value <= 2500)) {
-                    return value;
-                }
-            } catch (NumberFormatException e) {
-                // Ignore
-            }
-        }
-
-        return 0;
+        });
     }
 
     private void togglePlayPause() {
@@ -1998,11 +2034,7 @@ public class MediaViewerFragment extends DialogFragment {
         // Reset zoom when displaying new image (but don't fit yet - wait for image to load)
         mediaImageView.resetZoom();
 
-        Glide
-            .with(requireContext())
-            .load(item.path)
-            .dontAnimate()
-            .dontTransform()
+        fullScreenImageRequest(item.path)
             .listener(
                 new com.bumptech.glide.request.RequestListener<android.graphics.drawable.Drawable>() {
                     @Override
@@ -2059,6 +2091,8 @@ public class MediaViewerFragment extends DialogFragment {
                 }
             )
             .into(mediaImageView);
+        // The view has dropped the zoomed drawable for the new request, so its bitmap can go
+        cancelZoomDecode();
 
         hideControls();
     }
@@ -2068,50 +2102,21 @@ public class MediaViewerFragment extends DialogFragment {
             playbackHandler.removeCallbacks(playbackRunnable);
         }
 
+        long stateTickMs = Math.max(MIN_STATE_TICK_MS, config.stateEventIntervalMs);
+        lastStateTickMs = 0;
         playbackRunnable =
             new Runnable() {
-                private int qualityCheckCounter = 0;
-                private int lastDetectedWidth = 0;
-                private int lastDetectedHeight = 0;
-                private String lastDetectedQuality = null;
-
                 @Override
                 public void run() {
-                    if (exoPlayer != null && listener != null) {
-                        updatePlaybackState();
-
-                        // Check quality continuously when in Auto mode
-                        if ("Auto".equals(currentQuality)) {
-                            qualityCheckCounter++;
-                            // Check every call (every 500ms) for more responsive updates
-                            int currentWidth = exoPlayer.getVideoSize().width;
-                            int currentHeight = exoPlayer.getVideoSize().height;
-
-                            // Always check if dimensions or track selection might have changed
-                            if (currentWidth != lastDetectedWidth || currentHeight != lastDetectedHeight) {
-                                lastDetectedWidth = currentWidth;
-                                lastDetectedHeight = currentHeight;
-                                Log.d("MediaViewerFragment", "Video size changed in monitoring: " + currentWidth + "x" + currentHeight);
-                                updateAutoQuality();
-                                // Also check if quality changed
-                                if (actualPlayingQuality != null && !actualPlayingQuality.equals(lastDetectedQuality)) {
-                                    lastDetectedQuality = actualPlayingQuality;
-                                    Log.d("MediaViewerFragment", "Quality updated to: " + actualPlayingQuality);
-                                }
-                            } else {
-                                // Check every call to catch track selection changes even if video size hasn't changed
-                                // This is important for adaptive streaming where ExoPlayer might switch tracks
-                                // without immediately changing the reported video size
-                                updateAutoQuality();
-                                // Check if quality changed
-                                if (actualPlayingQuality != null && !actualPlayingQuality.equals(lastDetectedQuality)) {
-                                    lastDetectedQuality = actualPlayingQuality;
-                                    Log.d("MediaViewerFragment", "Quality updated to: " + actualPlayingQuality);
-                                }
-                            }
+                    if (exoPlayer != null) {
+                        updateSeekBar();
+                        long now = android.os.SystemClock.uptimeMillis();
+                        if (now - lastStateTickMs >= stateTickMs) {
+                            lastStateTickMs = now;
+                            notifyPlaybackState();
                         }
                     }
-                    playbackHandler.postDelayed(this, 500);
+                    playbackHandler.postDelayed(this, Math.min(stateTickMs, SEEK_BAR_TICK_MS));
                 }
             };
         playbackHandler.post(playbackRunnable);
@@ -2119,40 +2124,39 @@ public class MediaViewerFragment extends DialogFragment {
 
     private void updatePlaybackState() {
         if (exoPlayer != null) {
-            // Update seek bar
-            if (seekBar != null && exoPlayer.getDuration() > 0) {
-                long currentPosition = exoPlayer.getCurrentPosition();
-                long duration = exoPlayer.getDuration();
-                // Calculate progress as percentage (0-1000)
-                int progress = duration > 0 ? (int) ((currentPosition * 1000L) / duration) : 0;
-                if (progress >= 0 && progress <= 1000) {
-                    seekBar.setProgress(progress);
-                }
-                updateCurrentTimeText(currentPosition);
-            }
+            updateSeekBar();
+            notifyPlaybackState();
+        }
+    }
 
-            // Notify listener
-            if (listener != null) {
-                PlaybackState state = new PlaybackState();
-                state.isPlaying = exoPlayer.isPlaying();
-                state.currentTime = exoPlayer.getCurrentPosition() / 1000.0; // Convert to seconds
-                state.duration = exoPlayer.getDuration() / 1000.0; // Convert to seconds
-                state.currentQuality = currentQuality;
-                listener.onPlaybackStateChanged(state);
+    private void updateSeekBar() {
+        if (seekBar != null && exoPlayer.getDuration() > 0) {
+            long currentPosition = exoPlayer.getCurrentPosition();
+            long duration = exoPlayer.getDuration();
+            // Calculate progress as percentage (0-1000)
+            int progress = duration > 0 ? (int) ((currentPosition * 1000L) / duration) : 0;
+            if (progress >= 0 && progress <= 1000) {
+                seekBar.setProgress(progress);
             }
+            updateCurrentTimeText(currentPosition);
+        }
+    }
+
+    private void notifyPlaybackState() {
+        // Don't build states nobody on the JS side listens to
+        if (listener != null && listener.isPlaybackStateObserved()) {
+            playbackEngine.emitPlaybackState();
         }
     }
 
     private void showNext() {
-        if (currentIndex < mediaItems.size() - 1) {
-            currentIndex++;
+        if (gallery.moveToNext()) {
             displayCurrentMedia();
         }
     }
 
     private void showPrevious() {
-        if (currentIndex > 0) {
-            currentIndex--;
+        if (gallery.moveToPrevious()) {
             displayCurrentMedia();
         }
     }
@@ -2161,8 +2165,15 @@ public class MediaViewerFragment extends DialogFragment {
         if (isSwiping || rootView == null) return;
 
         // Determine target index
-        int targetIndex = direction > 0 ? currentIndex - 1 : currentIndex + 1;
-        if (targetIndex < 0 || targetIndex >= mediaItems.size()) return;
+        int targetIndex = direction > 0 ? gallery.getCurrentIndex() - 1 : gallery.getCurrentIndex() + 1;
+        if (!gallery.isInRange(targetIndex)) return;
+
+        int preloadTargetIndex = gallery.getPreloadTargetIndex();
+        if (preloadTargetIndex >= 0 && preloadTargetIndex != targetIndex) {
+            // User turned around - stop spending bandwidth on the other neighbour
+            playbackEngine.cancelPreload();
+            gallery.setPreloadTargetIndex(-1);
+        }
 
         swipeDirection = direction;
         swipeTotalDistance = initialOffset;
@@ -2180,8 +2191,8 @@ public class MediaViewerFragment extends DialogFragment {
             return;
         }
 
-        // Create and prepare next/previous item view
-        nextMediaContainer = createNextItemContainer(targetIndex);
+        // Rebind the recycled page to the next/previous item
+        nextMediaContainer = bindSwipePage(targetIndex);
         if (nextMediaContainer == null) {
             isSwiping = false;
             return;
@@ -2192,10 +2203,6 @@ public class MediaViewerFragment extends DialogFragment {
         float nextStartX = direction > 0 ? -screenWidth : screenWidth;
         nextMediaContainer.setTranslationX(nextStartX);
         nextMediaContainer.setVisibility(View.VISIBLE);
-        nextMediaContainer.setElevation(1); // Lower elevation than current
-
-        // Add next item container to root
-        rootView.addView(nextMediaContainer);
 
         // Start tracking swipe progress
         updateSwipeProgress(initialOffset);
@@ -2265,13 +2272,9 @@ public class MediaViewerFragment extends DialogFragment {
                     public void onAnimationEnd(Animator animation) {
                         // Switch to next item
                         if (swipeDirection > 0) {
-                            if (currentIndex > 0) {
-                                currentIndex--;
-                            }
+                            gallery.moveToPrevious();
                         } else {
-                            if (currentIndex < mediaItems.size() - 1) {
-                                currentIndex++;
-                            }
+                            gallery.moveToNext();
                         }
 
                         // Clean up and display new media
@@ -2316,6 +2319,10 @@ public class MediaViewerFragment extends DialogFragment {
                 @Override
                 public void onAnimationEnd(Animator animation) {
                     cleanupSwipe();
+                    // Resume preloading if starting the swipe cancelled it
+                    if (gallery.getPreloadTargetIndex() < 0) {
+                        preloadAdjacentVideo();
+                    }
                 }
             }
         );
@@ -2336,8 +2343,11 @@ public class MediaViewerFragment extends DialogFragment {
             currentView.setTranslationX(0);
         }
 
-        if (nextMediaContainer != null && rootView != null) {
-            rootView.removeView(nextMediaContainer);
+        if (nextMediaContainer != null) {
+            // Park the page for the next swipe instead of removing it
+            nextMediaContainer.setVisibility(View.GONE);
+            nextMediaContainer.setTranslationX(0);
+            Glide.with(this).clear(swipePageImage);
             nextMediaContainer = null;
         }
 
@@ -2345,6 +2355,17 @@ public class MediaViewerFragment extends DialogFragment {
         swipeDirection = 0;
         swipeStartX = 0;
         swipeTotalDistance = 0;
+
+        if (!pendingItemChanges.isEmpty()) {
+            // Run after the swipe has displayed its new item
+            List<Runnable> changes = new ArrayList<>(pendingItemChanges);
+            pendingItemChanges.clear();
+            playbackHandler.post(() -> {
+                for (Runnable change : changes) {
+                    change.run();
+                }
+            });
+        }
     }
 
     private View getCurrentMediaView() {
@@ -2360,9 +2381,10 @@ public class MediaViewerFragment extends DialogFragment {
                 return videoContainer;
             }
             // Fallback: if we have a current item and it's a video, return videoContainer
-            if (mediaItems != null && currentIndex >= 0 && currentIndex < mediaItems.size()) {
-                MediaItem item = mediaItems.get(currentIndex);
-                if ("VIDEO".equals(item.type)) {
+            if (gallery.isInRange(gallery.getCurrentIndex())) {
+                MediaItem item = gallery.getCurrentItem();
+                // An empty placeholder page slides like a video page
+                if (item == null || "VIDEO".equals(item.type)) {
                     return videoContainer;
                 }
             }
@@ -2370,219 +2392,131 @@ public class MediaViewerFragment extends DialogFragment {
         return null;
     }
 
-    private FrameLayout createNextItemContainer(int targetIndex) {
-        if (mediaItems == null || targetIndex < 0 || targetIndex >= mediaItems.size()) {
+    /**
+     * Point the recycled swipe page at {@code targetIndex}: the image, or the thumbnail for a
+     * video. The page and its image view are created on the first swipe and reused afterwards.
+     */
+    private FrameLayout bindSwipePage(int targetIndex) {
+        if (!gallery.isInRange(targetIndex)) {
             return null;
         }
 
-        MediaItem item = mediaItems.get(targetIndex);
-        FrameLayout container = new FrameLayout(requireContext());
-        container.setLayoutParams(
-            new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT)
-        );
-        container.setBackgroundColor(Color.BLACK);
-
-        if ("VIDEO".equals(item.type)) {
-            // Create video thumbnail view
-            ImageView thumbnail = new ImageView(requireContext());
-            thumbnail.setLayoutParams(
+        if (swipePage == null) {
+            swipePage = new FrameLayout(requireContext());
+            swipePage.setLayoutParams(
                 new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT)
             );
-            thumbnail.setScaleType(ImageView.ScaleType.FIT_CENTER);
-            container.addView(thumbnail);
+            swipePage.setBackgroundColor(Color.BLACK);
+            swipePage.setElevation(1); // Lower elevation than current
+            swipePage.setVisibility(View.GONE);
 
-            if (item.thumbnail != null && !item.thumbnail.isEmpty()) {
-                Glide.with(this).load(item.thumbnail).into(thumbnail);
-            }
-        } else {
-            // Create image view
-            ImageView imageView = new ImageView(requireContext());
-            imageView.setLayoutParams(
+            swipePageImage = new ImageView(requireContext());
+            swipePageImage.setLayoutParams(
                 new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT)
             );
-            imageView.setScaleType(ImageView.ScaleType.FIT_CENTER);
-            container.addView(imageView);
+            swipePageImage.setScaleType(ImageView.ScaleType.FIT_CENTER);
+            swipePage.addView(swipePageImage);
+            rootView.addView(swipePage);
+        }
 
-            Glide.with(requireContext()).load(item.path).dontAnimate().dontTransform().into(imageView);
+        MediaItem item = gallery.getItem(targetIndex);
+        // Not provided by JS yet, or a video without thumbnail - slide in an empty page
+        String path = item == null ? null : "VIDEO".equals(item.type) ? item.thumbnail : item.path;
+        if (path != null && !path.isEmpty()) {
+            // Usually already in memory thanks to prefetchAdjacentImages()
+            fullScreenImageRequest(path).into(swipePageImage);
+        } else {
+            Glide.with(this).clear(swipePageImage);
         }
 
-        return container;
+        return swipePage;
     }
 
     public void play() {
-        if (exoPlayer != null) {
-            exoPlayer.setPlayWhenReady(true);
-        }
+        playbackEngine.play();
     }
 
     public void pause() {
-        if (exoPlayer != null) {
-            exoPlayer.setPlayWhenReady(false);
-        }
+        playbackEngine.pause();
     }
 
     public void seek(long timeMs) {
-        if (exoPlayer != null) {
-            exoPlayer.seekTo(timeMs);
-        }
+        playbackEngine.seek(timeMs);
     }
 
-    public void setQuality(String quality) {
-        if (mediaItems == null || currentIndex < 0 || currentIndex >= mediaItems.size()) {
-            return;
-        }
+    /**
+     * Playback metrics of the videos shown so far, oldest first, ending with the current one.
+     */
+    @OptIn(markerClass = UnstableApi.class)
+    public List<ItemMetrics> getMetrics() {
+        return metricsCollector.getMetrics();
+    }
 
-        MediaItem currentItem = mediaItems.get(currentIndex);
+    public void setQuality(String quality) {
+        MediaItem currentItem = gallery.getCurrentItem();
         if (currentItem == null) {
             return;
         }
 
-        // Handle "Auto" option
-        if ("Auto".equals(quality)) {
-            long currentPosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
-            boolean wasPlaying = exoPlayer != null && exoPlayer.isPlaying();
-            currentQuality = "Auto";
-            actualPlayingQuality = null; // Reset, will be detected when playback starts
-
-            // Use original path and let ExoPlayer choose automatically
-            MediaItem playbackItem = cloneMediaItemWithUrl(currentItem, currentItem.path);
-            android.graphics.SurfaceTexture surfaceTexture = textureView != null ? textureView.getSurfaceTexture() : null;
-
-            // Show thumbnail again when switching quality (if available)
-            if (videoThumbnail != null && currentItem.thumbnail != null && !currentItem.thumbnail.isEmpty()) {
-                videoThumbnail.setVisibility(View.VISIBLE);
-                Glide.with(this).load(currentItem.thumbnail).into(videoThumbnail);
-            } else if (videoThumbnail != null) {
-                videoThumbnail.setVisibility(View.GONE);
+        // Null selects Auto and lets ExoPlayer choose
+        QualityVariant selected = null;
+        if (!PlaybackEngine.AUTO_QUALITY.equals(quality)) {
+            if (currentItem.qualityVariants == null) {
+                return;
             }
-
-            // Hide video initially when switching quality (use alpha)
-            if (textureView != null) {
-                textureView.setAlpha(0f);
-                
-                // Reset TextureView to full screen size before switching
-                FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) textureView.getLayoutParams();
-                params.width = FrameLayout.LayoutParams.MATCH_PARENT;
-                params.height = FrameLayout.LayoutParams.MATCH_PARENT;
-                params.gravity = android.view.Gravity.CENTER;
-                textureView.setLayoutParams(params);
-
-                // Reset all transforms and positioning to avoid zoom/offset issues
-                textureView.setX(0f);
-                textureView.setY(0f);
-                textureView.setScaleX(1f);
-                textureView.setScaleY(1f);
-                
-                // Reset transform matrix to identity - will be recalculated when new video size is known
-                android.graphics.Matrix matrix = new android.graphics.Matrix();
-                textureView.setTransform(matrix);
-                textureView.requestLayout();
+            for (QualityVariant variant : currentItem.qualityVariants) {
+                if (variant.label.equals(quality)) {
+                    selected = variant;
+                    break;
+                }
             }
-
-            releasePlayer(false);
-
-            if (surfaceTexture != null) {
-                preparePlayerWithSurface(playbackItem, surfaceTexture, currentPosition, wasPlaying);
-            } else if (textureView != null) {
-                textureView.post(() -> {
-                    android.graphics.SurfaceTexture availableSurface = textureView.getSurfaceTexture();
-                    if (availableSurface != null) {
-                        preparePlayerWithSurface(playbackItem, availableSurface, currentPosition, wasPlaying);
-                    }
-                });
+            if (selected == null) {
+                return;
             }
-            return;
         }
 
-        // Handle manual quality selection
-        if (currentItem.qualityVariants == null) {
-            return;
+        if (!playbackEngine.selectQuality(currentItem.path, selected)) {
+            rebuildPlayerForQuality(currentItem, selected != null ? selected.url : currentItem.path);
         }
+    }
 
-        for (QualityVariant variant : currentItem.qualityVariants) {
-            if (variant.label.equals(quality)) {
-                long currentPosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
-                boolean wasPlaying = exoPlayer != null && exoPlayer.isPlaying();
-                currentQuality = quality;
-                actualPlayingQuality = quality; // Set actual quality to selected one
-
-                MediaItem playbackItem = cloneMediaItemWithUrl(currentItem, variant.url);
-                android.graphics.SurfaceTexture surfaceTexture = textureView != null ? textureView.getSurfaceTexture() : null;
-
-                // Show thumbnail again when switching quality (if available)
-                if (videoThumbnail != null && currentItem.thumbnail != null && !currentItem.thumbnail.isEmpty()) {
-                    videoThumbnail.setVisibility(View.VISIBLE);
-                    Glide.with(this).load(currentItem.thumbnail).into(videoThumbnail);
-                } else if (videoThumbnail != null) {
-                    videoThumbnail.setVisibility(View.GONE);
-                }
+    /**
+     * Old switching path: tear the player down and prepare it again with {@code url}.
+     * Only used when the quality can't be changed through track selection.
+     */
+    private void rebuildPlayerForQuality(MediaItem currentItem, String url) {
+        long currentPosition = exoPlayer != null ? exoPlayer.getCurrentPosition() : 0;
+        boolean wasPlaying = exoPlayer != null && exoPlayer.isPlaying();
 
-                // Hide video initially when switching quality (use alpha)
-                if (textureView != null) {
-                    textureView.setAlpha(0f);
-                    
-                    // Reset TextureView to full screen size before switching
-                    FrameLayout.LayoutParams params = (FrameLayout.LayoutParams) textureView.getLayoutParams();
-                    params.width = FrameLayout.LayoutParams.MATCH_PARENT;
-                    params.height = FrameLayout.LayoutParams.MATCH_PARENT;
-                    params.gravity = android.view.Gravity.CENTER;
-                    textureView.setLayoutParams(params);
-
-                    // Reset all transforms and positioning to avoid zoom/offset issues
-                    textureView.setX(0f);
-                    textureView.setY(0f);
-                    textureView.setScaleX(1f);
-                    textureView.setScaleY(1f);
-                    
-                    // Reset transform matrix to identity - will be recalculated when new video size is known
-                    android.graphics.Matrix matrix = new android.graphics.Matrix();
-                    textureView.setTransform(matrix);
-                    textureView.requestLayout();
-                }
+        MediaItem playbackItem = currentItem.withPath(url);
 
-                releasePlayer(false);
+        // Show thumbnail again when switching quality (if available)
+        if (videoThumbnail != null && currentItem.thumbnail != null && !currentItem.thumbnail.isEmpty()) {
+            videoThumbnail.setVisibility(View.VISIBLE);
+            fullScreenImageRequest(currentItem.thumbnail).into(videoThumbnail);
+        } else if (videoThumbnail != null) {
+            videoThumbnail.setVisibility(View.GONE);
+        }
 
-                if (surfaceTexture != null) {
-                    preparePlayerWithSurface(playbackItem, surfaceTexture, currentPosition, wasPlaying);
-                } else if (textureView != null) {
-                    textureView.post(() -> {
-                        android.graphics.SurfaceTexture availableSurface = textureView.getSurfaceTexture();
-                        if (availableSurface != null) {
-                            preparePlayerWithSurface(playbackItem, availableSurface, currentPosition, wasPlaying);
-                        }
-                    });
-                }
-                break;
-            }
+        // Hide video initially when switching quality (use alpha)
+        if (textureView != null) {
+            textureView.setAlpha(0f);
         }
-    }
 
-    private MediaItem cloneMediaItemWithUrl(MediaItem baseItem, String path) {
-        MediaItem clone = new MediaItem();
-        clone.path = path;
-        clone.type = baseItem.type;
-        clone.alt = baseItem.alt;
-        clone.thumbnail = baseItem.thumbnail;
-        clone.qualityVariants = baseItem.qualityVariants;
-        return clone;
+        // Same surface and letterbox transform; the transform is corrected if the new size differs
+        releasePlayer(false);
+        preparePlayerWithSurface(playbackItem, currentPosition, wasPlaying);
     }
 
     public PlaybackState getPlaybackState() {
-        PlaybackState state = new PlaybackState();
-        if (exoPlayer != null) {
-            state.isPlaying = exoPlayer.isPlaying();
-            state.currentTime = exoPlayer.getCurrentPosition() / 1000.0;
-            state.duration = exoPlayer.getDuration() / 1000.0;
-            state.currentQuality = currentQuality;
-        }
-        return state;
+        return playbackEngine.getPlaybackState();
     }
 
     private void releasePlayer() {
         releasePlayer(true);
     }
 
-    private void releasePlayer(boolean detachTextureListener) {
+    private void releasePlayer(boolean cancelPendingSurface) {
         if (playbackRunnable != null) {
             playbackHandler.removeCallbacks(playbackRunnable);
             playbackRunnable = null;
@@ -2593,19 +2527,16 @@ public class MediaViewerFragment extends DialogFragment {
             hideControlsRunnable = null;
         }
 
-        if (exoPlayer != null) {
-            exoPlayer.clearVideoSurface();
-            exoPlayer.release();
-            exoPlayer = null;
-        }
-
-        releaseVideoSurface();
+        // Keeps the player warm for the next video
+        playbackEngine.stop();
 
-        if (detachTextureListener && textureView != null) {
-            textureView.setSurfaceTextureListener(null);
+        // The surface itself stays alive for the next video; only a pending surface wait is dropped
+        if (cancelPendingSurface && videoSurfaceManager != null) {
+            videoSurfaceManager.cancelPending();
         }
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     @Override
     public void onDestroyView() {
         super.onDestroyView();
@@ -2617,6 +2548,10 @@ public class MediaViewerFragment extends DialogFragment {
         }
 
         releasePlayer();
+        playbackEngine.release();
+        qualityVariantsLoader.cancel();
+        cancelImagePrefetch();
+        cancelZoomDecode();
         
         // Stop spinner animation
         stopSpinnerAnimation();
@@ -2642,19 +2577,20 @@ public class MediaViewerFragment extends DialogFragment {
         seekBar = null;
         currentTimeText = null;
         durationText = null;
+        if (videoSurfaceManager != null) {
+            playbackEngine.setVideoOutput(null);
+            videoSurfaceManager.release();
+            videoSurfaceManager = null;
+        }
         textureView = null;
         mediaImageView = null;
+        swipePage = null;
+        swipePageImage = null;
         rootView = null;
+        // Report the last video before the viewer goes away
+        metricsCollector.finishItem();
         if (listener != null) {
             listener.onViewerDismissed();
         }
     }
-
-    private QualityVariant findVariantForUrl(String url) {
-        if (qualityVariants == null) return null;
-        for (QualityVariant v : qualityVariants) {
-            if (url.equals(v.url)) return v;
-        }
-        return null;
-    }
 }
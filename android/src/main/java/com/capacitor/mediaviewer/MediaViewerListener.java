@@ -2,7 +2,11 @@ package com.capacitor.mediaviewer;
 
 public interface MediaViewerListener {
     void onPlaybackStateChanged(PlaybackState state);
+    // Whether anyone wants onPlaybackStateChanged; if not, states are not built
+    boolean isPlaybackStateObserved();
     void onMediaIndexChanged(int index);
     void onViewerDismissed();
+    void onItemsRequested(int start, int count);
+    void onItemMetrics(ItemMetrics metrics);
 }
 
@@ -2,16 +2,23 @@ package com.capacitor.mediaviewer;
 
 import android.app.Activity;
 import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
 import androidx.annotation.NonNull;
+import androidx.annotation.OptIn;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
+import androidx.media3.common.util.UnstableApi;
+import com.getcapacitor.JSArray;
 import com.getcapacitor.JSObject;
 import com.getcapacitor.Plugin;
 import com.getcapacitor.PluginCall;
 import com.getcapacitor.PluginMethod;
 import com.getcapacitor.annotation.CapacitorPlugin;
-import java.util.List;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -21,13 +28,30 @@ public class MediaViewerPlugin extends Plugin {
 
     private MediaViewerFragment mediaViewerFragment;
     private MediaViewerListener mediaViewerListener;
+    private PlaybackStateEventBridge playbackStateEvents;
+    // Finished items since show(), kept here so getMetrics() still answers after the viewer closes
+    private final Deque<ItemMetrics> finishedMetrics = new ArrayDeque<>();
 
+    @OptIn(markerClass = UnstableApi.class)
     @Override
     public void load() {
+        HlsPlaylistCache.init(getContext());
+        MediaCache.init(getContext());
+
+        playbackStateEvents = new PlaybackStateEventBridge(state -> notifyListeners("playbackStateChanged", state.toJSObject()));
+
         mediaViewerListener = new MediaViewerListener() {
             @Override
             public void onPlaybackStateChanged(PlaybackState state) {
-                notifyListeners("playbackStateChanged", state.toJSObject());
+                // Don't serialize states nobody on the JS side listens to
+                if (hasListeners("playbackStateChanged")) {
+                    playbackStateEvents.offer(state);
+                }
+            }
+
+            @Override
+            public boolean isPlaybackStateObserved() {
+                return hasListeners("playbackStateChanged");
             }
 
             @Override
@@ -39,11 +63,36 @@ public class MediaViewerPlugin extends Plugin {
 
             @Override
             public void onViewerDismissed() {
+                // Back and swipe-down close the viewer without going through dismiss()
+                mediaViewerFragment = null;
+                playbackStateEvents.reset();
                 notifyListeners("viewerDismissed", new JSObject());
             }
+
+            @Override
+            public void onItemsRequested(int start, int count) {
+                JSObject data = new JSObject();
+                data.put("start", start);
+                data.put("count", count);
+                notifyListeners("itemsRequested", data);
+            }
+
+            @Override
+            public void onItemMetrics(ItemMetrics metrics) {
+                synchronized (finishedMetrics) {
+                    finishedMetrics.addLast(metrics);
+                    while (finishedMetrics.size() > PlaybackMetricsCollector.MAX_HISTORY) {
+                        finishedMetrics.removeFirst();
+                    }
+                }
+                if (hasListeners("metrics")) {
+                    notifyListeners("metrics", metrics.toJSObject());
+                }
+            }
         };
     }
 
+    @OptIn(markerClass = UnstableApi.class)
     @PluginMethod
     public void show(PluginCall call) {
         try {
@@ -52,7 +101,32 @@ public class MediaViewerPlugin extends Plugin {
             int currentIndex = options.getInt("currentIndex");
             String title = options.optString("title", "");
 
-            List<MediaItem> mediaItems = parseMediaItems(itemsArray);
+            // Only the window passed in is parsed; the rest of a large album is requested page by page
+            List<MediaItem> mediaItems = MediaItemDecoder.decodeItems(itemsArray);
+            int windowStart = options.optInt("windowStart", 0);
+            int totalCount = options.optInt("totalCount", windowStart + mediaItems.size());
+            if (windowStart < 0) {
+                call.reject("windowStart must not be negative: " + windowStart);
+                return;
+            }
+            if (totalCount < (long) windowStart + mediaItems.size()) {
+                call.reject("totalCount " + totalCount + " is smaller than windowStart + items.length");
+                return;
+            }
+            if (totalCount > MediaItemPager.MAX_TOTAL_COUNT) {
+                call.reject("totalCount must not exceed " + MediaItemPager.MAX_TOTAL_COUNT + ": " + totalCount);
+                return;
+            }
+            if (currentIndex < 0 || currentIndex >= totalCount) {
+                call.reject("currentIndex " + currentIndex + " is out of range for totalCount " + totalCount);
+                return;
+            }
+            MediaViewerConfig config = parseConfig(options);
+            config.shownAtMs = SystemClock.elapsedRealtime();
+            MediaItemPager itemPager = new MediaItemPager(mediaItems, windowStart, totalCount, config.pageSize);
+            if (config.cacheMaxBytes > 0 && MediaCache.getInstance() != null) {
+                MediaCache.getInstance().setMaxBytes(config.cacheMaxBytes);
+            }
 
             Activity activity = getActivity();
             if (activity == null) {
@@ -67,10 +141,16 @@ public class MediaViewerPlugin extends Plugin {
 
             FragmentActivity fragmentActivity = (FragmentActivity) activity;
             fragmentActivity.runOnUiThread(() -> {
+                playbackStateEvents.reset();
+                playbackStateEvents.setIntervalMs(config.stateEventIntervalMs);
+                synchronized (finishedMetrics) {
+                    finishedMetrics.clear();
+                }
                 mediaViewerFragment = MediaViewerFragment.newInstance(
-                    mediaItems,
+                    itemPager,
                     currentIndex,
                     title,
+                    config,
                     mediaViewerListener
                 );
                 FragmentManager fragmentManager = fragmentActivity.getSupportFragmentManager();
@@ -88,10 +168,16 @@ public class MediaViewerPlugin extends Plugin {
     @PluginMethod
     public void dismiss(PluginCall call) {
         Activity activity = getActivity();
-        if (activity != null && mediaViewerFragment != null) {
+        MediaViewerFragment fragment = mediaViewerFragment;
+        if (activity != null && fragment != null) {
             activity.runOnUiThread(() -> {
-                mediaViewerFragment.dismiss();
-                mediaViewerFragment = null;
+                // Already gone if the user closed it in the meantime
+                if (fragment.isAdded()) {
+                    fragment.dismiss();
+                }
+                if (mediaViewerFragment == fragment) {
+                    mediaViewerFragment = null;
+                }
                 call.resolve();
             });
         } else {
@@ -101,7 +187,7 @@ public class MediaViewerPlugin extends Plugin {
 
     @PluginMethod
     public void play(PluginCall call) {
-        if (mediaViewerFragment != null) {
+        if (isViewerShowing()) {
             mediaViewerFragment.play();
             call.resolve();
         } else {
@@ -111,7 +197,7 @@ public class MediaViewerPlugin extends Plugin {
 
     @PluginMethod
     public void pause(PluginCall call) {
-        if (mediaViewerFragment != null) {
+        if (isViewerShowing()) {
             mediaViewerFragment.pause();
             call.resolve();
         } else {
@@ -123,7 +209,7 @@ public class MediaViewerPlugin extends Plugin {
     public void seek(PluginCall call) {
         try {
             double time = call.getDouble("time");
-            if (mediaViewerFragment != null) {
+            if (isViewerShowing()) {
                 mediaViewerFragment.seek((long) (time * 1000)); // Convert to milliseconds
                 call.resolve();
             } else {
@@ -138,7 +224,7 @@ public class MediaViewerPlugin extends Plugin {
     public void setQuality(PluginCall call) {
         try {
             String quality = call.getString("quality");
-            if (mediaViewerFragment != null) {
+            if (isViewerShowing()) {
                 mediaViewerFragment.setQuality(quality);
                 call.resolve();
             } else {
@@ -151,7 +237,7 @@ public class MediaViewerPlugin extends Plugin {
 
     @PluginMethod
     public void getPlaybackState(PluginCall call) {
-        if (mediaViewerFragment != null) {
+        if (isViewerShowing()) {
             PlaybackState state = mediaViewerFragment.getPlaybackState();
             call.resolve(state.toJSObject());
         } else {
@@ -159,19 +245,201 @@ public class MediaViewerPlugin extends Plugin {
         }
     }
 
-    private List<MediaItem> parseMediaItems(JSONArray itemsArray) throws JSONException {
-        List<MediaItem> items = new ArrayList<>();
-        for (int i = 0; i < itemsArray.length(); i++) {
-            JSONObject itemObj = itemsArray.getJSONObject(i);
-            MediaItem item = new MediaItem();
-            item.path = itemObj.getString("path");
-            item.type = itemObj.getString("type");
-            item.alt = itemObj.optString("alt", null);
-            item.thumbnail = itemObj.optString("thumbnail", null);
+    @PluginMethod
+    public void provideItems(PluginCall call) {
+        try {
+            JSONObject options = call.getData();
+            int start = options.getInt("start");
+            List<MediaItem> items = MediaItemDecoder.decodeItems(options.getJSONArray("items"));
+            runOnViewer(call, fragment -> {
+                fragment.provideItems(start, items);
+                call.resolve();
+            });
+        } catch (JSONException e) {
+            call.reject("Error parsing items: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void appendItems(PluginCall call) {
+        try {
+            List<MediaItem> items = MediaItemDecoder.decodeItems(call.getData().getJSONArray("items"));
+            runOnViewer(call, fragment -> {
+                fragment.appendItems(items);
+                call.resolve();
+            });
+        } catch (JSONException e) {
+            call.reject("Error parsing items: " + e.getMessage());
+        }
+    }
 
-            items.add(item);
+    @PluginMethod
+    public void insertItems(PluginCall call) {
+        try {
+            JSONObject options = call.getData();
+            int index = options.getInt("index");
+            List<MediaItem> items = MediaItemDecoder.decodeItems(options.getJSONArray("items"));
+            runOnViewer(call, fragment -> {
+                if (fragment.insertItems(index, items)) {
+                    call.resolve();
+                } else {
+                    call.reject("Index out of range: " + index);
+                }
+            });
+        } catch (JSONException e) {
+            call.reject("Error parsing items: " + e.getMessage());
         }
-        return items;
     }
-}
 
+    @PluginMethod
+    public void removeItems(PluginCall call) {
+        try {
+            JSONObject options = call.getData();
+            int index = options.getInt("index");
+            int count = options.optInt("count", 1);
+            runOnViewer(call, fragment -> {
+                if (fragment.removeItems(index, count)) {
+                    call.resolve();
+                } else {
+                    call.reject("Range out of bounds: " + index + " + " + count);
+                }
+            });
+        } catch (JSONException e) {
+            call.reject("Error parsing options: " + e.getMessage());
+        }
+    }
+
+    @PluginMethod
+    public void updateItem(PluginCall call) {
+        try {
+            JSONObject options = call.getData();
+            int index = options.getInt("index");
+            MediaItem item = MediaItemDecoder.decodeItem(options.getJSONObject("item"));
+            runOnViewer(call, fragment -> {
+                if (fragment.updateItem(index, item)) {
+                    call.resolve();
+                } else {
+                    call.reject("Index out of range: " + index);
+                }
+            });
+        } catch (JSONException e) {
+            call.reject("Error parsing item: " + e.getMessage());
+        }
+    }
+
+    private boolean isViewerShowing() {
+        return mediaViewerFragment != null && mediaViewerFragment.isAdded();
+    }
+
+    private interface ViewerAction {
+        void run(MediaViewerFragment fragment);
+    }
+
+    private void runOnViewer(PluginCall call, ViewerAction action) {
+        Activity activity = getActivity();
+        if (activity == null || !isViewerShowing()) {
+            call.reject("Media viewer is not showing");
+            return;
+        }
+        activity.runOnUiThread(() -> {
+            if (!isViewerShowing()) {
+                call.reject("Media viewer is not showing");
+                return;
+            }
+            action.run(mediaViewerFragment);
+        });
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    @PluginMethod
+    public void clearCache(PluginCall call) {
+        MediaCache mediaCache = MediaCache.getInstance();
+        if (mediaCache != null) {
+            mediaCache.clear();
+        }
+        call.resolve();
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    @PluginMethod
+    public void getCacheStats(PluginCall call) {
+        MediaCache mediaCache = MediaCache.getInstance();
+        if (mediaCache == null) {
+            call.reject("Media cache is not available");
+            return;
+        }
+        JSObject result = new JSObject();
+        result.put("usedBytes", mediaCache.getUsedBytes());
+        result.put("maxBytes", mediaCache.getMaxBytes());
+        result.put("entryCount", mediaCache.getEntryCount());
+        call.resolve(result);
+    }
+
+    @PluginMethod
+    public void getMetrics(PluginCall call) {
+        Activity activity = getActivity();
+        if (activity == null || !isViewerShowing()) {
+            resolveMetrics(call, copyFinishedMetrics());
+            return;
+        }
+        activity.runOnUiThread(() -> {
+            // The viewer also reports the item still playing
+            resolveMetrics(call, isViewerShowing() ? mediaViewerFragment.getMetrics() : copyFinishedMetrics());
+        });
+    }
+
+    private List<ItemMetrics> copyFinishedMetrics() {
+        synchronized (finishedMetrics) {
+            return new ArrayList<>(finishedMetrics);
+        }
+    }
+
+    private void resolveMetrics(PluginCall call, List<ItemMetrics> metrics) {
+        JSArray items = new JSArray();
+        for (ItemMetrics item : metrics) {
+            items.put(item.toJSObject());
+        }
+        JSObject result = new JSObject();
+        result.put("items", items);
+        call.resolve(result);
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private MediaViewerConfig parseConfig(JSONObject options) {
+        MediaViewerConfig config = new MediaViewerConfig();
+        config.preloadAdjacent = options.optBoolean("preloadAdjacent", config.preloadAdjacent);
+        config.preloadDurationMs = Math.max(0, options.optLong("preloadDurationMs", config.preloadDurationMs));
+        config.preloadMaxBytes = Math.max(0, options.optLong("preloadMaxBytes", config.preloadMaxBytes));
+        config.imagePrefetchCount = Math.max(0, options.optInt("imagePrefetchCount", config.imagePrefetchCount));
+        config.pageSize = Math.max(1, options.optInt("pageSize", config.pageSize));
+        config.stateEventIntervalMs = Math.max(0, options.optLong("stateEventIntervalMs", config.stateEventIntervalMs));
+        if (options.has("cacheSizeMb")) {
+            config.cacheMaxBytes = Math.max(0, (long) (options.optDouble("cacheSizeMb", 0) * 1024 * 1024));
+        }
+        config.buffering = parseBuffering(options);
+        return config;
+    }
+
+    @OptIn(markerClass = UnstableApi.class)
+    private BufferingProfile parseBuffering(JSONObject options) {
+        String name = options.optString("bufferingProfile", BufferingProfile.DEFAULT);
+        BufferingProfile profile = BufferingProfile.forName(name);
+        if (profile == null) {
+            Log.w("MediaViewerPlugin", "Unknown buffering profile " + name + ", using default");
+            profile = BufferingProfile.forName(BufferingProfile.DEFAULT);
+        }
+
+        JSONObject overrides = options.optJSONObject("buffering");
+        if (overrides != null) {
+            profile.minBufferMs = overrides.optInt("minBufferMs", profile.minBufferMs);
+            profile.maxBufferMs = overrides.optInt("maxBufferMs", profile.maxBufferMs);
+            profile.bufferForPlaybackMs = overrides.optInt("bufferForPlaybackMs", profile.bufferForPlaybackMs);
+            profile.bufferForPlaybackAfterRebufferMs =
+                overrides.optInt("bufferForPlaybackAfterRebufferMs", profile.bufferForPlaybackAfterRebufferMs);
+            profile.backBufferMs = overrides.optInt("backBufferMs", profile.backBufferMs);
+            profile.targetBufferBytes = overrides.optInt("targetBufferBytes", profile.targetBufferBytes);
+        }
+        profile.normalize();
+        return profile;
+    }
+}
@@ -0,0 +1,94 @@
+package com.capacitor.mediaviewer;
+
+import androidx.annotation.Nullable;
+import androidx.media3.common.Player;
+import androidx.media3.exoplayer.ExoPlayer;
+import java.util.List;
+
+/**
+ * Video playback for the viewer without any of its UI: plays items on players from a
+ * {@link PlayerPool}, tracks the selected and the actually playing quality, and builds the
+ * playback state reported to JS. The viewer passes in its own {@link Player.Listener} for
+ * controls and layout and is told through {@link Listener} when the current player changes.
+ * {@link ExoPlaybackEngine} is the implementation. Main thread only.
+ */
+public interface PlaybackEngine {
+    String AUTO_QUALITY = "Auto";
+
+    interface Listener {
+        // The player playing the current video, or null once it was handed back
+        void onPlayerChanged(@Nullable ExoPlayer player);
+
+        void onPlaybackStateChanged(PlaybackState state);
+    }
+
+    /**
+     * Where players render. Null while the viewer has no view.
+     */
+    void setVideoOutput(@Nullable VideoOutput output);
+
+    @Nullable
+    ExoPlayer getPlayer();
+
+    /**
+     * Play {@code path}, handing back the current player first. Returns the player, or null if
+     * the pool has none to give.
+     */
+    @Nullable
+    ExoPlayer start(String path, long startPositionMs, boolean playWhenReady, Player.Listener playerListener);
+
+    /**
+     * Hand the current player back to the pool, keeping it warm for the next item.
+     */
+    void stop();
+
+    void play();
+
+    void pause();
+
+    void seek(long timeMs);
+
+    /**
+     * Speed for the current player and every one started after it.
+     */
+    void setPlaybackSpeed(float speed);
+
+    float getPlaybackSpeed();
+
+    void preload(String path, long durationMs, long maxBytes);
+
+    void cancelPreload();
+
+    void release();
+
+    PlaybackState getPlaybackState();
+
+    /**
+     * Report the current state to the listener, if a video is playing.
+     */
+    void emitPlaybackState();
+
+    String getCurrentQuality();
+
+    /**
+     * Back to Auto for a new video, with the variants known for it so far (may be null).
+     */
+    void resetQuality(@Nullable List<QualityVariant> variants);
+
+    /**
+     * Variants of the current video, used to label what Auto is playing.
+     */
+    void setQualityVariants(@Nullable List<QualityVariant> variants);
+
+    /**
+     * Select {@code variant}, or Auto for null, for the video at {@code path}. Returns false if
+     * the running player can't switch to it, in which case the caller has to play the variant's
+     * URL (or {@code path} for Auto) instead.
+     */
+    boolean selectQuality(String path, @Nullable QualityVariant variant);
+
+    /**
+     * Label the quality Auto is playing from the player's current video format.
+     */
+    void updateAutoQuality();
+}
@@ -0,0 +1,174 @@
+package com.capacitor.mediaviewer;
+
+import android.os.SystemClock;
+import androidx.annotation.NonNull;
+import androidx.media3.common.C;
+import androidx.media3.common.Format;
+import androidx.media3.common.Player;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.analytics.AnalyticsListener;
+import androidx.media3.exoplayer.source.LoadEventInfo;
+import androidx.media3.exoplayer.source.MediaLoadData;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Records {@link ItemMetrics} for each video the viewer shows. Attached as an analytics
+ * listener to whichever player is playing the current item; the viewer marks where items
+ * begin and end. Finished items are reported to the listener and kept in a short history.
+ * Main thread only.
+ */
+@UnstableApi
+public class PlaybackMetricsCollector implements AnalyticsListener {
+
+    static final int MAX_HISTORY = 50;
+
+    public interface Listener {
+        void onItemMetrics(ItemMetrics metrics);
+    }
+
+    private final Listener listener;
+    private final Deque<ItemMetrics> history = new ArrayDeque<>();
+    private ItemMetrics current;
+    private long startedAtMs;
+    private long bufferingSinceMs = 0;
+    private boolean seeking = false;
+    private int lastVideoBitrate = Format.NO_VALUE;
+
+    public PlaybackMetricsCollector(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start recording a new item. {@code startedAtMs} (elapsedRealtime) is when the user asked
+     * for it, used for time-to-first-frame. Finishes the previous item.
+     */
+    public void beginItem(int index, String path, long startedAtMs) {
+        if (current != null && current.index == index && current.path.equals(path)) {
+            // Same item shown again, e.g. after a list update - keep counting
+            return;
+        }
+        finishItem();
+        current = new ItemMetrics();
+        current.index = index;
+        current.path = path;
+        this.startedAtMs = startedAtMs;
+        bufferingSinceMs = 0;
+        seeking = false;
+        lastVideoBitrate = Format.NO_VALUE;
+    }
+
+    /**
+     * Stop recording the current item, if any, and report it.
+     */
+    public void finishItem() {
+        if (current == null) {
+            return;
+        }
+        endRebuffer();
+        ItemMetrics finished = current;
+        current = null;
+        history.addLast(finished);
+        while (history.size() > MAX_HISTORY) {
+            history.removeFirst();
+        }
+        if (listener != null) {
+            listener.onItemMetrics(finished);
+        }
+    }
+
+    public void recordQualitySwitch(long latencyMs) {
+        if (current != null) {
+            current.lastQualitySwitchMs = latencyMs;
+        }
+    }
+
+    /**
+     * Finished items, oldest first, followed by the item still playing.
+     */
+    public List<ItemMetrics> getMetrics() {
+        List<ItemMetrics> metrics = new ArrayList<>(history);
+        if (current != null) {
+            metrics.add(current);
+        }
+        return metrics;
+    }
+
+    @Override
+    public void onRenderedFirstFrame(@NonNull EventTime eventTime, @NonNull Object output, long renderTimeMs) {
+        if (current != null && current.timeToFirstFrameMs < 0) {
+            current.timeToFirstFrameMs = SystemClock.elapsedRealtime() - startedAtMs;
+        }
+    }
+
+    @Override
+    public void onPositionDiscontinuity(
+        @NonNull EventTime eventTime,
+        @NonNull Player.PositionInfo oldPosition,
+        @NonNull Player.PositionInfo newPosition,
+        int reason
+    ) {
+        if (reason == Player.DISCONTINUITY_REASON_SEEK) {
+            seeking = true;
+        }
+    }
+
+    @Override
+    public void onPlaybackStateChanged(@NonNull EventTime eventTime, int state) {
+        if (current == null) {
+            return;
+        }
+        if (state == Player.STATE_BUFFERING) {
+            // Only stalls during playback count; startup and seeks buffer by design
+            if (current.timeToFirstFrameMs >= 0 && !seeking && bufferingSinceMs == 0) {
+                bufferingSinceMs = SystemClock.elapsedRealtime();
+                current.rebufferCount++;
+            }
+        } else {
+            endRebuffer();
+            if (state == Player.STATE_READY) {
+                seeking = false;
+            }
+        }
+    }
+
+    @Override
+    public void onDroppedVideoFrames(@NonNull EventTime eventTime, int droppedFrames, long elapsedMs) {
+        if (current != null) {
+            current.droppedFrames += droppedFrames;
+        }
+    }
+
+    @Override
+    public void onDownstreamFormatChanged(@NonNull EventTime eventTime, @NonNull MediaLoadData mediaLoadData) {
+        Format format = mediaLoadData.trackFormat;
+        if (current == null || format == null || format.bitrate == Format.NO_VALUE) {
+            return;
+        }
+        // Muxed HLS variants report the default track type
+        boolean video = mediaLoadData.trackType == C.TRACK_TYPE_VIDEO || (mediaLoadData.trackType == C.TRACK_TYPE_DEFAULT && format.height > 0);
+        if (!video) {
+            return;
+        }
+        if (lastVideoBitrate != Format.NO_VALUE && format.bitrate != lastVideoBitrate) {
+            current.bitrateSwitchCount++;
+        }
+        lastVideoBitrate = format.bitrate;
+    }
+
+    @Override
+    public void onLoadCompleted(@NonNull EventTime eventTime, @NonNull LoadEventInfo loadEventInfo, @NonNull MediaLoadData mediaLoadData) {
+        if (current != null) {
+            current.bytesLoaded += loadEventInfo.bytesLoaded;
+        }
+    }
+
+    private void endRebuffer() {
+        if (bufferingSinceMs != 0) {
+            current.rebufferDurationMs += SystemClock.elapsedRealtime() - bufferingSinceMs;
+            bufferingSinceMs = 0;
+        }
+    }
+}
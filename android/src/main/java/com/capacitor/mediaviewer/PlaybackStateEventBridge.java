@@ -0,0 +1,94 @@
+package com.capacitor.mediaviewer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import java.util.Objects;
+
+/**
+ * Throttles playbackStateChanged events on their way to the WebView.
+ * States identical to the last emitted one are dropped. Discrete changes (play/pause, quality,
+ * duration) are delivered on the next main loop pass, so a burst of player callbacks collapses
+ * into one event. Position-only updates are sent at most once per interval, and only the most
+ * recent state of a burst is sent. Must be used from the main thread.
+ */
+public class PlaybackStateEventBridge {
+
+    public static final long DEFAULT_INTERVAL_MS = 500;
+
+    // Position changes smaller than this are not worth an event
+    private static final double MIN_TIME_DELTA_SECONDS = 0.05;
+
+    public interface Sink {
+        void emit(PlaybackState state);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Sink sink;
+    private final Runnable flushRunnable = this::flush;
+    private long intervalMs = DEFAULT_INTERVAL_MS;
+    private PlaybackState lastEmitted;
+    private long lastEmitTimeMs;
+    private PlaybackState pending;
+    private long scheduledAtMs = -1;
+
+    public PlaybackStateEventBridge(Sink sink) {
+        this.sink = sink;
+    }
+
+    public void setIntervalMs(long intervalMs) {
+        this.intervalMs = Math.max(0, intervalMs);
+    }
+
+    public void offer(PlaybackState state) {
+        if (lastEmitted != null && !isTimeChanged(lastEmitted, state) && !isDiscreteChange(lastEmitted, state)) {
+            // Back to what JS already has - nothing to send
+            pending = null;
+            return;
+        }
+
+        pending = state;
+        long now = SystemClock.uptimeMillis();
+        long dueAtMs = lastEmitted == null || isDiscreteChange(lastEmitted, state) ? now : Math.max(now, lastEmitTimeMs + intervalMs);
+        if (scheduledAtMs < 0 || dueAtMs < scheduledAtMs) {
+            handler.removeCallbacks(flushRunnable);
+            handler.postAtTime(flushRunnable, dueAtMs);
+            scheduledAtMs = dueAtMs;
+        }
+    }
+
+    /**
+     * Forget the last emitted state and drop anything pending, e.g. when a viewer closes.
+     */
+    public void reset() {
+        handler.removeCallbacks(flushRunnable);
+        scheduledAtMs = -1;
+        pending = null;
+        lastEmitted = null;
+        lastEmitTimeMs = 0;
+    }
+
+    private void flush() {
+        scheduledAtMs = -1;
+        PlaybackState state = pending;
+        pending = null;
+        if (state == null) {
+            return;
+        }
+        lastEmitted = state;
+        lastEmitTimeMs = SystemClock.uptimeMillis();
+        sink.emit(state);
+    }
+
+    private static boolean isDiscreteChange(PlaybackState previous, PlaybackState next) {
+        return (
+            previous.isPlaying != next.isPlaying ||
+            !Objects.equals(previous.currentQuality, next.currentQuality) ||
+            Math.abs(previous.duration - next.duration) >= MIN_TIME_DELTA_SECONDS
+        );
+    }
+
+    private static boolean isTimeChanged(PlaybackState previous, PlaybackState next) {
+        return Math.abs(previous.currentTime - next.currentTime) >= MIN_TIME_DELTA_SECONDS;
+    }
+}
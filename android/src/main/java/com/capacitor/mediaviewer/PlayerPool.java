@@ -0,0 +1,31 @@
+package com.capacitor.mediaviewer;
+
+import androidx.annotation.Nullable;
+import androidx.media3.exoplayer.ExoPlayer;
+
+/**
+ * Source of the players the playback engine plays on. {@link ExoPlayerPool} keeps them warm
+ * between items and preloads the neighbouring one.
+ */
+public interface PlayerPool {
+    /**
+     * A player for {@code path}, preferably one already prepared for it. Null once released.
+     */
+    @Nullable
+    ExoPlayer acquire(String path);
+
+    /**
+     * Hand a player back. The caller must have removed its own listeners.
+     */
+    void recycle(ExoPlayer player);
+
+    /**
+     * Prepare {@code path} ahead of time, buffering at most {@code durationMs} of media or
+     * {@code maxBytes} of data.
+     */
+    void preload(String path, long durationMs, long maxBytes);
+
+    void cancelPreload();
+
+    void release();
+}
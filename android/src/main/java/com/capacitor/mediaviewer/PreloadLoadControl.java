@@ -0,0 +1,96 @@
+package com.capacitor.mediaviewer;
+
+import androidx.media3.common.C;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.DefaultLoadControl;
+import androidx.media3.exoplayer.LoadControl;
+import androidx.media3.exoplayer.Renderer;
+import androidx.media3.exoplayer.source.TrackGroupArray;
+import androidx.media3.exoplayer.trackselection.ExoTrackSelection;
+import androidx.media3.exoplayer.upstream.Allocator;
+
+/**
+ * LoadControl that behaves like its delegate, except while a preload budget is set:
+ * then loading stops once the buffered duration or allocated bytes reach the budget.
+ * Used to prepare a neighbouring item without downloading the whole clip.
+ */
+@UnstableApi
+public class PreloadLoadControl implements LoadControl {
+
+    private final DefaultLoadControl delegate;
+    private volatile long preloadLimitUs = C.TIME_UNSET;
+    private volatile long preloadMaxBytes = C.LENGTH_UNSET;
+
+    public PreloadLoadControl(DefaultLoadControl delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Limit loading to {@code durationMs} of media and {@code maxBytes} of buffer.
+     * Called from the main thread, read on the playback thread.
+     */
+    public void setPreloadBudget(long durationMs, long maxBytes) {
+        preloadLimitUs = durationMs * 1000;
+        preloadMaxBytes = maxBytes;
+    }
+
+    public void clearPreloadBudget() {
+        preloadLimitUs = C.TIME_UNSET;
+        preloadMaxBytes = C.LENGTH_UNSET;
+    }
+
+    @Override
+    public boolean shouldContinueLoading(long playbackPositionUs, long bufferedDurationUs, float playbackSpeed) {
+        long limitUs = preloadLimitUs;
+        if (limitUs != C.TIME_UNSET) {
+            if (bufferedDurationUs >= limitUs) {
+                return false;
+            }
+            long maxBytes = preloadMaxBytes;
+            if (maxBytes != C.LENGTH_UNSET && delegate.getAllocator().getTotalBytesAllocated() >= maxBytes) {
+                return false;
+            }
+        }
+        return delegate.shouldContinueLoading(playbackPositionUs, bufferedDurationUs, playbackSpeed);
+    }
+
+    @Override
+    public boolean shouldStartPlayback(long bufferedDurationUs, float playbackSpeed, boolean rebuffering, long targetLiveOffsetUs) {
+        return delegate.shouldStartPlayback(bufferedDurationUs, playbackSpeed, rebuffering, targetLiveOffsetUs);
+    }
+
+    @Override
+    public void onPrepared() {
+        delegate.onPrepared();
+    }
+
+    @Override
+    public void onTracksSelected(Renderer[] renderers, TrackGroupArray trackGroups, ExoTrackSelection[] trackSelections) {
+        delegate.onTracksSelected(renderers, trackGroups, trackSelections);
+    }
+
+    @Override
+    public void onStopped() {
+        delegate.onStopped();
+    }
+
+    @Override
+    public void onReleased() {
+        delegate.onReleased();
+    }
+
+    @Override
+    public Allocator getAllocator() {
+        return delegate.getAllocator();
+    }
+
+    @Override
+    public long getBackBufferDurationUs() {
+        return delegate.getBackBufferDurationUs();
+    }
+
+    @Override
+    public boolean retainBackBufferFromKeyframe() {
+        return delegate.retainBackBufferFromKeyframe();
+    }
+}
@@ -5,5 +5,15 @@ public class QualityVariant {
     public String url;
     public int width;
     public int height;
+    // Attributes from #EXT-X-STREAM-INF / #EXT-X-I-FRAME-STREAM-INF (0 or null when absent)
+    public long bandwidth;
+    public long averageBandwidth;
+    public String codecs;
+    public float frameRate;
+    public String hdcpLevel;
+    public String videoRange;
+    public String audioGroup;
+    public String videoGroup;
+    public String subtitlesGroup;
+    public String closedCaptions;
 }
-
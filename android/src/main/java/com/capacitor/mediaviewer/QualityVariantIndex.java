@@ -0,0 +1,235 @@
+package com.capacitor.mediaviewer;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable lookup structure for matching a decoded video size to a quality variant label.
+ * Built once per variant list; {@link #match(int, int)} does a binary search over the label
+ * heights and constant-time checks for the label-pattern fallbacks, without allocating.
+ *
+ * Matching follows the viewer's original heuristics exactly:
+ * 1. the first variant (in list order) whose label height is within 10px,
+ * 2. otherwise the closest label height if within 50px (first in list order on ties),
+ * 3. otherwise a label pattern ("4k", "1080", "hd", ...) whose resolution range contains the size,
+ * 4. otherwise the closest label height, however far.
+ */
+final class QualityVariantIndex {
+
+    private static final int EXACT_HEIGHT_TOLERANCE = 10;
+    private static final int CLOSE_HEIGHT_TOLERANCE = 50;
+
+    private final String[] labels;
+    // Label heights sorted ascending, with the list position of each one alongside
+    private final int[] sortedHeights;
+    private final int[] sortedPositions;
+    // First list position whose label matches each resolution tier, or -1
+    private final int first4k;
+    private final int first1080;
+    private final int first720;
+    private final int first480;
+    private final int first360;
+
+    private QualityVariantIndex(List<QualityVariant> variants) {
+        int count = variants.size();
+        labels = new String[count];
+        long[] keyed = new long[count];
+        int withHeight = 0;
+        int f4k = -1, f1080 = -1, f720 = -1, f480 = -1, f360 = -1;
+
+        for (int i = 0; i < count; i++) {
+            String label = variants.get(i).label;
+            labels[i] = label;
+            int height = extractHeightFromLabel(label);
+            if (height > 0) {
+                // Sort by height, then list position
+                keyed[withHeight++] = ((long) height << 32) | i;
+            }
+
+            String lower = label.toLowerCase();
+            if (f4k < 0 && (lower.contains("4k") || lower.contains("2160"))) {
+                f4k = i;
+            }
+            if (f1080 < 0 && (lower.contains("1080") || lower.contains("full hd"))) {
+                f1080 = i;
+            }
+            if (f720 < 0 && (lower.contains("720") || lower.contains("hd"))) {
+                f720 = i;
+            }
+            if (f480 < 0 && (lower.contains("480") || lower.contains("sd"))) {
+                f480 = i;
+            }
+            if (f360 < 0 && lower.contains("360")) {
+                f360 = i;
+            }
+        }
+
+        Arrays.sort(keyed, 0, withHeight);
+        sortedHeights = new int[withHeight];
+        sortedPositions = new int[withHeight];
+        for (int i = 0; i < withHeight; i++) {
+            sortedHeights[i] = (int) (keyed[i] >>> 32);
+            sortedPositions[i] = (int) keyed[i];
+        }
+        first4k = f4k;
+        first1080 = f1080;
+        first720 = f720;
+        first480 = f480;
+        first360 = f360;
+    }
+
+    static QualityVariantIndex of(List<QualityVariant> variants) {
+        return new QualityVariantIndex(variants);
+    }
+
+    /**
+     * Label of the variant matching a decoded video size, or null if nothing matches.
+     */
+    String match(int width, int height) {
+        int count = sortedHeights.length;
+
+        // 1. First variant in list order within the exact tolerance
+        int from = lowerBound(height - EXACT_HEIGHT_TOLERANCE);
+        int exact = Integer.MAX_VALUE;
+        for (int i = from; i < count && sortedHeights[i] <= height + EXACT_HEIGHT_TOLERANCE; i++) {
+            exact = Math.min(exact, sortedPositions[i]);
+        }
+        if (exact != Integer.MAX_VALUE) {
+            return labels[exact];
+        }
+
+        // Closest label height, first in list order on ties
+        int closest = -1;
+        int closestDiff = Integer.MAX_VALUE;
+        if (count > 0) {
+            int above = lowerBound(height);
+            int diffAbove = above < count ? sortedHeights[above] - height : Integer.MAX_VALUE;
+            int diffBelow = above > 0 ? height - sortedHeights[above - 1] : Integer.MAX_VALUE;
+            closestDiff = Math.min(diffAbove, diffBelow);
+            if (diffBelow == closestDiff) {
+                // Start of the run of equal heights below has the lowest list position
+                closest = sortedPositions[lowerBound(sortedHeights[above - 1])];
+            }
+            if (diffAbove == closestDiff && (closest < 0 || sortedPositions[above] < closest)) {
+                closest = sortedPositions[above];
+            }
+        }
+
+        // 2. Reasonably close height
+        if (closest >= 0 && closestDiff <= CLOSE_HEIGHT_TOLERANCE) {
+            return labels[closest];
+        }
+
+        // 3. Label patterns, highest tier first, only if the size really is in that tier
+        int totalPixels = width * height;
+        if (first4k >= 0 && height >= 2000 && totalPixels >= 3500000) {
+            return labels[first4k];
+        }
+        if (first1080 >= 0 && height >= 1000 && height < 2000 && totalPixels >= 1800000 && totalPixels < 3500000) {
+            return labels[first1080];
+        }
+        if (first720 >= 0 && height >= 650 && height < 1000 && totalPixels >= 800000 && totalPixels < 1800000) {
+            return labels[first720];
+        }
+        if (first480 >= 0 && height >= 400 && height < 650 && totalPixels >= 300000 && totalPixels < 800000) {
+            return labels[first480];
+        }
+        if (first360 >= 0 && height >= 300 && height < 400 && totalPixels >= 100000 && totalPixels < 300000) {
+            return labels[first360];
+        }
+
+        // 4. Closest height, however far
+        return closest >= 0 ? labels[closest] : null;
+    }
+
+    /**
+     * Height from labels like "720p", "1080 p" or "HD 720", or 0 if there is none.
+     * Equivalent to finding "(\d+)\s*p", then a standalone 3-4 digit number in 300..2500.
+     */
+    static int extractHeightFromLabel(String label) {
+        int length = label.length();
+
+        // First run of digits followed by optional whitespace and 'p'
+        for (int i = 0; i < length;) {
+            if (!isDigit(label.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isDigit(label.charAt(i))) {
+                i++;
+            }
+            int end = i;
+            int next = end;
+            while (next < length && isWhitespace(label.charAt(next))) {
+                next++;
+            }
+            if (next < length && (label.charAt(next) == 'p' || label.charAt(next) == 'P')) {
+                long value = parseDigits(label, start, end);
+                if (value <= Integer.MAX_VALUE) {
+                    return (int) value;
+                }
+                // Too large to be a height - fall through to the standalone number
+                break;
+            }
+        }
+
+        // First standalone run of 3-4 digits
+        for (int i = 0; i < length;) {
+            if (!isDigit(label.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < length && isDigit(label.charAt(i))) {
+                i++;
+            }
+            int digits = i - start;
+            boolean boundaryBefore = start == 0 || !isWordChar(label.charAt(start - 1));
+            boolean boundaryAfter = i == length || !isWordChar(label.charAt(i));
+            if (boundaryBefore && boundaryAfter && digits >= 3 && digits <= 4) {
+                int value = (int) parseDigits(label, start, i);
+                return value >= 300 && value <= 2500 ? value : 0;
+            }
+        }
+
+        return 0;
+    }
+
+    private int lowerBound(int height) {
+        int low = 0;
+        int high = sortedHeights.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedHeights[mid] < height) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long parseDigits(String text, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+            if (value > Integer.MAX_VALUE) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isWordChar(char c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+}
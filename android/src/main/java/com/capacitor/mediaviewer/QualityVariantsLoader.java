@@ -0,0 +1,140 @@
+package com.capacitor.mediaviewer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import androidx.media3.common.util.UnstableApi;
+import androidx.media3.exoplayer.hls.HlsManifest;
+import java.util.List;
+
+/**
+ * Finds the quality variants of the video being shown. Variants parsed earlier are used right
+ * away; fresh ones normally come from the multivariant playlist the player loads anyway. Only
+ * if the player hasn't reported one in time, or fails, is the playlist fetched and parsed
+ * separately through {@link HlsParseExecutor}.
+ * Main thread only.
+ */
+@UnstableApi
+public class QualityVariantsLoader {
+
+    private static final String TAG = "QualityVariantsLoader";
+    // How long to wait for the player's own manifest before fetching the playlist separately
+    private static final long FALLBACK_DELAY_MS = 4000;
+
+    public interface Callback {
+        // New variants were stored in item.qualityVariants
+        void onVariantsFound(MediaItem item);
+    }
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Callback callback;
+    private HlsParseExecutor.Request request;
+    private Runnable fallbackRunnable;
+    private Object lastMultivariantPlaylist;
+
+    public QualityVariantsLoader(Callback callback) {
+        this.callback = callback;
+    }
+
+    /**
+     * Start looking for the variants of {@code item}, dropping any search for the previous video.
+     */
+    public void load(MediaItem item) {
+        cancel();
+        // A warm player replays the manifest it already reported when the video comes back
+        lastMultivariantPlaylist = null;
+        if (!HlsPlaylistParser.isHlsUrl(item.path)) {
+            return;
+        }
+
+        // Show previously parsed variants right away, then refresh them if stale
+        HlsPlaylistCache.Entry cached = HlsPlaylistCache.getInstance().peek(item.path);
+        if (cached != null) {
+            item.qualityVariants = cached.variants;
+            callback.onVariantsFound(item);
+        }
+        if (cached == null || !cached.isFresh()) {
+            scheduleFallback(item, cached != null);
+        }
+    }
+
+    /**
+     * The player playing {@code playbackItem} loaded {@code manifest}.
+     */
+    public void onManifestLoaded(MediaItem playbackItem, HlsManifest manifest) {
+        // Live playlist refreshes produce new manifests around the same multivariant playlist
+        if (manifest.multivariantPlaylist == lastMultivariantPlaylist) {
+            return;
+        }
+        lastMultivariantPlaylist = manifest.multivariantPlaylist;
+
+        // Without variants there is nothing to offer, and nothing for the fallback to find either
+        cancel();
+        List<QualityVariant> variants = HlsManifestVariants.fromManifest(manifest);
+        if (variants.isEmpty()) {
+            return;
+        }
+
+        playbackItem.qualityVariants = variants;
+        HlsParseExecutor.getInstance().cacheVariants(playbackItem.path, variants);
+        callback.onVariantsFound(playbackItem);
+    }
+
+    /**
+     * The player failed, so its manifest may never arrive - parse the playlist right away.
+     */
+    public void onPlayerError() {
+        if (fallbackRunnable != null) {
+            handler.removeCallbacks(fallbackRunnable);
+            fallbackRunnable.run();
+        }
+    }
+
+    public void cancel() {
+        if (fallbackRunnable != null) {
+            handler.removeCallbacks(fallbackRunnable);
+            fallbackRunnable = null;
+        }
+        if (request != null) {
+            request.cancel();
+            request = null;
+        }
+    }
+
+    /**
+     * Parse the playlist unless the player's manifest arrives first. {@code stale} means
+     * item.qualityVariants came from an expired cache entry and must be revalidated as well.
+     */
+    private void scheduleFallback(MediaItem item, boolean stale) {
+        fallbackRunnable =
+            () -> {
+                fallbackRunnable = null;
+                if (stale || item.qualityVariants == null || item.qualityVariants.isEmpty()) {
+                    Log.d(TAG, "No manifest from player, parsing playlist directly");
+                    request(item);
+                }
+            };
+        handler.postDelayed(fallbackRunnable, FALLBACK_DELAY_MS);
+    }
+
+    private void request(MediaItem item) {
+        // Issue the new request before cancelling the old one so a request for the same
+        // playlist is coalesced instead of being cancelled and fetched again
+        HlsParseExecutor.Request previous = request;
+        request =
+            HlsParseExecutor
+                .getInstance()
+                .parse(
+                    item.path,
+                    variants -> {
+                        if (variants != null && !variants.isEmpty()) {
+                            item.qualityVariants = variants;
+                            callback.onVariantsFound(item);
+                        }
+                    }
+                );
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.capacitor.mediaviewer;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Rect;
+import android.media.ExifInterface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.util.LruCache;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-resolution tiles of one large image for deep zoom.
+ * Tiles are square regions of {@link #TILE_SIZE} decoded pixels, decoded on demand with
+ * BitmapRegionDecoder at a power-of-two sample size (the level) and kept in an LRU cache keyed
+ * by (level, x, y). Decoding runs on a single background thread shared by all sources; queued
+ * tiles that have scrolled out of view by the time they come up are skipped.
+ * All methods except {@link #open} are for the main thread.
+ */
+public class TiledImageSource {
+
+    private static final String TAG = "TiledImageSource";
+    public static final int TILE_SIZE = 512;
+    private static final long MAX_CACHE_BYTES = 48L * 1024 * 1024;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    public interface OpenCallback {
+        /**
+         * Called on the main thread with the opened source, or null if the image can't be tiled.
+         */
+        void onOpened(TiledImageSource source);
+    }
+
+    private static ThreadPoolExecutor executor;
+
+    private final BitmapRegionDecoder decoder;
+    private final int width;
+    private final int height;
+    private final Bitmap.Config config;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<Long, Bitmap> tiles;
+    private final Set<Long> pending = new HashSet<>();
+    private Runnable onTileDecoded;
+    private volatile boolean released = false;
+    // Tiles the last frame needed, as a level and an inclusive tile range
+    private int wantedLevel = -1;
+    private int wantedLeft;
+    private int wantedTop;
+    private int wantedRight;
+    private int wantedBottom;
+
+    private TiledImageSource(BitmapRegionDecoder decoder, Bitmap.Config config) {
+        this.decoder = decoder;
+        this.width = decoder.getWidth();
+        this.height = decoder.getHeight();
+        this.config = config;
+        int cacheBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, MAX_CACHE_BYTES);
+        this.tiles =
+            new LruCache<Long, Bitmap>(cacheBytes) {
+                @Override
+                protected int sizeOf(Long key, Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+    }
+
+    /**
+     * Open {@code file} for tiling in the background. Images the region decoder can't read, and
+     * images with an EXIF rotation (which region decoding would ignore), give null.
+     */
+    public static void open(File file, OpenCallback callback) {
+        Handler handler = new Handler(Looper.getMainLooper());
+        getExecutor()
+            .execute(() -> {
+                TiledImageSource source = null;
+                try {
+                    BitmapFactory.Options bounds = new BitmapFactory.Options();
+                    bounds.inJustDecodeBounds = true;
+                    BitmapFactory.decodeFile(file.getPath(), bounds);
+                    if (bounds.outWidth > 0 && bounds.outHeight > 0 && !isRotated(file, bounds.outMimeType)) {
+                        BitmapRegionDecoder decoder = newDecoder(file);
+                        // JPEG has no alpha, so tiles can use half the memory
+                        Bitmap.Config config = "image/jpeg".equals(bounds.outMimeType) ? Bitmap.Config.RGB_565 : Bitmap.Config.ARGB_8888;
+                        source = new TiledImageSource(decoder, config);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    Log.w(TAG, "Can't tile " + file + ": " + e.getMessage());
+                }
+                final TiledImageSource result = source;
+                handler.post(() -> callback.onOpened(result));
+            });
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Called whenever a requested tile becomes available, typically to invalidate the view.
+     */
+    public void setOnTileDecodedListener(Runnable listener) {
+        this.onTileDecoded = listener;
+    }
+
+    /**
+     * Record the tiles the current frame shows, so queued decodes for anything else are dropped.
+     * A negative level means no tiles are needed.
+     */
+    public void setVisibleTiles(int level, int left, int top, int right, int bottom) {
+        synchronized (this) {
+            wantedLevel = level;
+            wantedLeft = left;
+            wantedTop = top;
+            wantedRight = right;
+            wantedBottom = bottom;
+        }
+    }
+
+    /**
+     * Cached tile, or null after queueing its decode. {@code level} is log2 of the sample size.
+     */
+    public Bitmap getTile(int level, int x, int y) {
+        long key = tileKey(level, x, y);
+        Bitmap tile = tiles.get(key);
+        if (tile == null && !released && pending.add(key)) {
+            getExecutor().execute(() -> decodeTile(level, x, y, key));
+        }
+        return tile;
+    }
+
+    /**
+     * Drop all tiles and free the decoder once queued work has drained.
+     */
+    public void release() {
+        if (released) {
+            return;
+        }
+        released = true;
+        onTileDecoded = null;
+        tiles.evictAll();
+        pending.clear();
+        getExecutor().execute(decoder::recycle);
+    }
+
+    private void decodeTile(int level, int x, int y, long key) {
+        Bitmap bitmap = null;
+        if (!released && isWanted(level, x, y)) {
+            int extent = TILE_SIZE << level;
+            Rect region = new Rect(x * extent, y * extent, Math.min(width, (x + 1) * extent), Math.min(height, (y + 1) * extent));
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = 1 << level;
+            options.inPreferredConfig = config;
+            try {
+                bitmap = decoder.decodeRegion(region, options);
+            } catch (RuntimeException | OutOfMemoryError e) {
+                Log.w(TAG, "Tile decode failed at level " + level + " (" + x + ", " + y + "): " + e);
+            }
+        }
+
+        final Bitmap result = bitmap;
+        mainHandler.post(() -> {
+            pending.remove(key);
+            if (result != null && !released) {
+                tiles.put(key, result);
+                if (onTileDecoded != null) {
+                    onTileDecoded.run();
+                }
+            }
+        });
+    }
+
+    private synchronized boolean isWanted(int level, int x, int y) {
+        return level == wantedLevel && x >= wantedLeft && x <= wantedRight && y >= wantedTop && y <= wantedBottom;
+    }
+
+    private static long tileKey(int level, int x, int y) {
+        return ((long) level << 56) | ((long) x << 28) | y;
+    }
+
+    private static boolean isRotated(File file, String mimeType) throws IOException {
+        if (!"image/jpeg".equals(mimeType)) {
+            return false;
+        }
+        int orientation = new ExifInterface(file.getPath()).getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        return orientation != ExifInterface.ORIENTATION_NORMAL && orientation != ExifInterface.ORIENTATION_UNDEFINED;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static BitmapRegionDecoder newDecoder(File file) throws IOException {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return BitmapRegionDecoder.newInstance(file.getPath());
+        }
+        return BitmapRegionDecoder.newInstance(file.getPath(), false);
+    }
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            ThreadFactory threadFactory = runnable -> {
+                Thread thread = new Thread(runnable, "TileDecode");
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            };
+            executor = new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+}
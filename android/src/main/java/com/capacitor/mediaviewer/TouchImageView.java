@@ -1,27 +1,37 @@
 package com.capacitor.mediaviewer;
 
 import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
 import android.graphics.PointF;
+import android.graphics.RectF;
+import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
+import android.view.Choreographer;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.View;
+import android.view.animation.DecelerateInterpolator;
 import android.widget.ImageView;
+import android.widget.OverScroller;
 
 
 public class TouchImageView extends ImageView implements View.OnTouchListener {
     private static final float MIN_SCALE = 1.0f;
-    private static final float MAX_SCALE = 4.0f;
+    static final float MAX_SCALE = 4.0f;
     private static final float DOUBLE_TAP_SCALE = 2.0f;
+    private static final long ZOOM_ANIMATION_NANOS = 250_000_000L;
 
     private Matrix matrix;
     private int viewWidth;
     private int viewHeight;
     private float saveScale = 1f;
-    private PointF last = new PointF();
-    private PointF start = new PointF();
+    private final PointF last = new PointF();
+    private final PointF start = new PointF();
+    private final PointF curr = new PointF();
     private float minScale;
     private float maxScale;
     private float[] m;
@@ -37,6 +47,41 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
     private GestureDetector mGestureDetector;
     private boolean isInitialFit = true;
     private SwipeListener swipeListener;
+    private ZoomListener zoomListener;
+    private TiledImageSource tiledSource;
+    private final Matrix tileInverse = new Matrix();
+    private final RectF tileVisible = new RectF();
+    private final RectF tileBounds = new RectF();
+    private final Paint tilePaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    // Touch changes to the matrix are applied once per frame instead of once per event
+    private boolean matrixCommitPending = false;
+
+    // Fling and double-tap zoom run frame by frame on Choreographer rather than per touch event
+    private OverScroller scroller;
+    private final DecelerateInterpolator zoomInterpolator = new DecelerateInterpolator();
+    private boolean flinging = false;
+    private int flingLastX;
+    private int flingLastY;
+    private boolean zoomAnimating = false;
+    private long zoomStartNanos;
+    private float zoomStartScale;
+    private float zoomStartX;
+    private float zoomStartY;
+    private float zoomEndScale;
+    private float zoomEndX;
+    private float zoomEndY;
+    private final Choreographer.FrameCallback animationFrame = this::onAnimationFrame;
+    private final Runnable commitMatrix = () -> {
+        matrixCommitPending = false;
+        setImageMatrix(matrix);
+    };
+
+    public interface ZoomListener {
+        /**
+         * Called when a pinch or double tap finishes, with the scale from drawable pixels to view pixels.
+         */
+        void onZoomChanged(float scale);
+    }
 
     public TouchImageView(Context context) {
         super(context);
@@ -53,6 +98,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
         this.setOnTouchListener(this);
         mScaleDetector = new ScaleGestureDetector(context, new ScaleListener());
         mGestureDetector = new GestureDetector(context, new GestureListener());
+        scroller = new OverScroller(context);
         matrix = new Matrix();
         m = new float[9];
         setImageMatrix(matrix);
@@ -60,6 +106,8 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
     }
     
     public void resetZoom() {
+        stopAnimations();
+        cancelMatrixCommit();
         saveScale = 1.0f;
         mode = NONE;
         isInitialFit = true;
@@ -70,6 +118,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
     public void fitToScreenPublic() {
         // Fit to screen - allow re-fitting on orientation changes
         if (getDrawable() != null && viewWidth > 0 && viewHeight > 0) {
+            stopAnimations();
             // Reset scale to allow re-fitting
             if (!isInitialFit) {
                 saveScale = 1.0f;
@@ -84,6 +133,252 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
         this.swipeListener = listener;
     }
 
+    public void setZoomListener(ZoomListener listener) {
+        this.zoomListener = listener;
+    }
+
+    /**
+     * Current scale from drawable pixels to view pixels. Above 1 the drawable is being magnified.
+     */
+    public float getCurrentScale() {
+        return saveScale;
+    }
+
+    /**
+     * Swap in another decode of the same image (e.g. a sharper one after zooming in) without
+     * moving it on screen. The zoom limits, and a zoom animation in flight, are rescaled to the
+     * new drawable's size.
+     */
+    public void replaceDrawableKeepingZoom(Drawable drawable) {
+        Drawable current = getDrawable();
+        if (current == null || drawable == null || current.getIntrinsicWidth() <= 0 || drawable.getIntrinsicWidth() <= 0) {
+            setImageDrawable(drawable);
+            return;
+        }
+        float ratio = (float) drawable.getIntrinsicWidth() / current.getIntrinsicWidth();
+        matrix.preScale(1f / ratio, 1f / ratio);
+        saveScale /= ratio;
+        minScale /= ratio;
+        maxScale /= ratio;
+        // The next animation frame sets the scale from these; translations are in view pixels
+        zoomStartScale /= ratio;
+        zoomEndScale /= ratio;
+        setImageDrawable(drawable);
+        setImageMatrix(matrix);
+    }
+
+    /**
+     * Draw full-resolution tiles from {@code source} over the current drawable wherever the
+     * drawable is magnified beyond its own resolution. The drawable must be a downsampled decode
+     * of the same image. Pass null to go back to the drawable alone; the old source is not released.
+     */
+    public void setTiledSource(TiledImageSource source) {
+        if (tiledSource != null) {
+            tiledSource.setOnTileDecodedListener(null);
+        }
+        tiledSource = source;
+        if (source != null) {
+            source.setOnTileDecodedListener(this::postInvalidateOnAnimation);
+        }
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (tiledSource != null) {
+            drawTiles(canvas);
+        }
+    }
+
+    private void drawTiles(Canvas canvas) {
+        Drawable drawable = getDrawable();
+        if (drawable == null || drawable.getIntrinsicWidth() <= 0 || viewWidth == 0 || viewHeight == 0) {
+            return;
+        }
+        // Source pixels per drawable pixel, and per view pixel at the current zoom
+        float toSource = (float) tiledSource.getWidth() / drawable.getIntrinsicWidth();
+        float sourcePerViewPixel = toSource / saveScale;
+        // The matrix ImageView is drawing with, which may lag a pending touch commit by a frame
+        Matrix drawMatrix = getImageMatrix();
+        if (saveScale <= 1f || toSource <= 1f || !drawMatrix.invert(tileInverse)) {
+            // The drawable alone is sharp enough
+            tiledSource.setVisibleTiles(-1, 0, 0, 0, 0);
+            return;
+        }
+
+        // Coarsest level that still has at least one source pixel per view pixel
+        int level = 0;
+        while ((2 << level) <= sourcePerViewPixel) {
+            level++;
+        }
+        int extent = TiledImageSource.TILE_SIZE << level;
+
+        // Visible part of the image in source pixels
+        tileVisible.set(0, 0, viewWidth, viewHeight);
+        tileInverse.mapRect(tileVisible);
+        float left = Math.max(0, tileVisible.left * toSource);
+        float top = Math.max(0, tileVisible.top * toSource);
+        float right = Math.min(tiledSource.getWidth(), tileVisible.right * toSource);
+        float bottom = Math.min(tiledSource.getHeight(), tileVisible.bottom * toSource);
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        int firstX = (int) (left / extent);
+        int firstY = (int) (top / extent);
+        int lastX = (int) ((right - 1) / extent);
+        int lastY = (int) ((bottom - 1) / extent);
+        tiledSource.setVisibleTiles(level, firstX, firstY, lastX, lastY);
+
+        int save = canvas.save();
+        canvas.concat(drawMatrix);
+        canvas.scale(1f / toSource, 1f / toSource);
+        for (int y = firstY; y <= lastY; y++) {
+            for (int x = firstX; x <= lastX; x++) {
+                Bitmap tile = tiledSource.getTile(level, x, y);
+                if (tile != null) {
+                    tileBounds.set(
+                        x * extent,
+                        y * extent,
+                        Math.min(tiledSource.getWidth(), (x + 1) * extent),
+                        Math.min(tiledSource.getHeight(), (y + 1) * extent)
+                    );
+                    canvas.drawBitmap(tile, null, tileBounds, tilePaint);
+                }
+            }
+        }
+        canvas.restoreToCount(save);
+    }
+
+    private void scheduleMatrixCommit() {
+        if (!matrixCommitPending) {
+            matrixCommitPending = true;
+            postOnAnimation(commitMatrix);
+        }
+    }
+
+    private void cancelMatrixCommit() {
+        if (matrixCommitPending) {
+            matrixCommitPending = false;
+            removeCallbacks(commitMatrix);
+        }
+    }
+
+    /**
+     * Animate to {@code targetScale}, keeping the point under ({@code focusX}, {@code focusY}) in
+     * place where the bounds allow. Images smaller than the view end up centred.
+     */
+    private void animateZoomTo(float targetScale, float focusX, float focusY) {
+        stopAnimations();
+        cancelMatrixCommit();
+        matrix.getValues(m);
+        zoomStartScale = saveScale;
+        zoomStartX = m[Matrix.MTRANS_X];
+        zoomStartY = m[Matrix.MTRANS_Y];
+        zoomEndScale = targetScale;
+
+        float factor = targetScale / saveScale;
+        zoomEndX = zoomTargetTrans(focusX - (focusX - zoomStartX) * factor, viewWidth, getImageWidth(targetScale));
+        zoomEndY = zoomTargetTrans(focusY - (focusY - zoomStartY) * factor, viewHeight, getImageHeight(targetScale));
+
+        zoomStartNanos = -1;
+        zoomAnimating = true;
+        Choreographer.getInstance().postFrameCallback(animationFrame);
+    }
+
+    private float zoomTargetTrans(float trans, float viewSize, float contentSize) {
+        if (contentSize <= viewSize) {
+            return (viewSize - contentSize) / 2;
+        }
+        return trans + getFixTrans(trans, viewSize, contentSize);
+    }
+
+    private void startFling(float velocityX, float velocityY) {
+        stopAnimations();
+        cancelMatrixCommit();
+        matrix.getValues(m);
+        int startX = (int) m[Matrix.MTRANS_X];
+        int startY = (int) m[Matrix.MTRANS_Y];
+        int minX = startX;
+        int maxX = startX;
+        int minY = startY;
+        int maxY = startY;
+        // Same bounds fixTrans() enforces; an axis that fits in the view doesn't move
+        if (getImageWidth() > viewWidth) {
+            minX = (int) (viewWidth - getImageWidth());
+            maxX = 0;
+        }
+        if (getImageHeight() > viewHeight) {
+            minY = (int) (viewHeight - getImageHeight());
+            maxY = 0;
+        }
+        scroller.fling(startX, startY, (int) velocityX, (int) velocityY, minX, maxX, minY, maxY);
+        flingLastX = startX;
+        flingLastY = startY;
+        flinging = true;
+        Choreographer.getInstance().postFrameCallback(animationFrame);
+    }
+
+    private void onAnimationFrame(long frameTimeNanos) {
+        if (zoomAnimating) {
+            if (zoomStartNanos < 0) {
+                zoomStartNanos = frameTimeNanos;
+            }
+            float t = Math.min(1f, (float) (frameTimeNanos - zoomStartNanos) / ZOOM_ANIMATION_NANOS);
+            float f = zoomInterpolator.getInterpolation(t);
+            saveScale = zoomStartScale + (zoomEndScale - zoomStartScale) * f;
+            matrix.setScale(saveScale, saveScale);
+            matrix.postTranslate(zoomStartX + (zoomEndX - zoomStartX) * f, zoomStartY + (zoomEndY - zoomStartY) * f);
+            setImageMatrix(matrix);
+            if (t >= 1f) {
+                zoomAnimating = false;
+                if (zoomEndScale <= minScale) {
+                    // Land exactly on the fitted state, limits included
+                    fitToScreen();
+                }
+                notifyZoomChanged();
+            }
+        } else if (flinging) {
+            if (scroller.computeScrollOffset()) {
+                int x = scroller.getCurrX();
+                int y = scroller.getCurrY();
+                matrix.postTranslate(x - flingLastX, y - flingLastY);
+                fixTrans();
+                flingLastX = x;
+                flingLastY = y;
+                setImageMatrix(matrix);
+            } else {
+                flinging = false;
+            }
+        }
+
+        if (zoomAnimating || flinging) {
+            Choreographer.getInstance().postFrameCallback(animationFrame);
+        }
+    }
+
+    private void stopAnimations() {
+        if (zoomAnimating || flinging) {
+            zoomAnimating = false;
+            flinging = false;
+            scroller.forceFinished(true);
+            Choreographer.getInstance().removeFrameCallback(animationFrame);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopAnimations();
+        cancelMatrixCommit();
+        super.onDetachedFromWindow();
+    }
+
+    private void notifyZoomChanged() {
+        if (zoomListener != null) {
+            zoomListener.onZoomChanged(saveScale);
+        }
+    }
+
     @Override
     protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
         super.onMeasure(widthMeasureSpec, heightMeasureSpec);
@@ -106,6 +401,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
         if (getDrawable() == null || viewWidth == 0 || viewHeight == 0) {
             return;
         }
+        cancelMatrixCommit();
 
         float imageWidth = getDrawable().getIntrinsicWidth();
         float imageHeight = getDrawable().getIntrinsicHeight();
@@ -164,6 +460,10 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
 
     @Override
     public boolean onTouch(View v, MotionEvent event) {
+        if (event.getActionMasked() == MotionEvent.ACTION_DOWN) {
+            // A new touch catches a fling or zoom animation wherever it is
+            stopAnimations();
+        }
         boolean isZoomed = saveScale > minScale + 0.01f; // Small threshold to account for floating point
         
         // Always let gesture detectors see events first (for double-tap and pinch)
@@ -178,7 +478,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
                 if (getParent() != null) {
                     getParent().requestDisallowInterceptTouchEvent(true);
                 }
-                setImageMatrix(matrix);
+                scheduleMatrixCommit();
                 return true;
             }
         }
@@ -188,12 +488,12 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
         if (mGestureDetector != null) {
             doubleTapHandled = mGestureDetector.onTouchEvent(event);
             if (doubleTapHandled) {
-                setImageMatrix(matrix);
+                scheduleMatrixCommit();
                 return true;
             }
         }
 
-        PointF curr = new PointF(event.getX(), event.getY());
+        curr.set(event.getX(), event.getY());
 
         switch (event.getAction() & MotionEvent.ACTION_MASK) {
             case MotionEvent.ACTION_DOWN:
@@ -235,7 +535,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
                     matrix.postTranslate(fixTransX, fixTransY);
                     fixTrans();
                     last.set(curr.x, curr.y);
-                    setImageMatrix(matrix);
+                    scheduleMatrixCommit();
                     return true;
                 } else if (!isZoomed && event.getPointerCount() == 1 && mode == NONE && !swipeTriggered) {
                     // Image is at minimum scale - check if it's a horizontal swipe
@@ -289,12 +589,12 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
 
         // Only consume if we're actually handling something (zoom or drag when zoomed)
         if (mode == ZOOM) {
-            setImageMatrix(matrix);
+            scheduleMatrixCommit();
             return true;
         }
         
         if (mode == DRAG && isZoomed) {
-            setImageMatrix(matrix);
+            scheduleMatrixCommit();
             return true;
         }
         
@@ -379,6 +679,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
     private class ScaleListener extends ScaleGestureDetector.SimpleOnScaleGestureListener {
         @Override
         public boolean onScaleBegin(ScaleGestureDetector detector) {
+            stopAnimations();
             mode = ZOOM;
             return true;
         }
@@ -406,6 +707,7 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
         @Override
         public void onScaleEnd(ScaleGestureDetector detector) {
             mode = NONE;
+            notifyZoomChanged();
         }
     }
 
@@ -418,18 +720,22 @@ public class TouchImageView extends ImageView implements View.OnTouchListener {
                 if (targetScale > maxScale) {
                     targetScale = maxScale;
                 }
-                float scaleFactor = targetScale / saveScale;
-                matrix.postScale(scaleFactor, scaleFactor, e.getX(), e.getY());
-                saveScale = targetScale;
+                animateZoomTo(targetScale, e.getX(), e.getY());
             } else {
                 // Zoom out to fit screen
-                matrix.reset();
-                fitToScreen();
+                animateZoomTo(minScale, e.getX(), e.getY());
             }
-            fixTrans();
-            setImageMatrix(matrix);
             return true;
         }
+
+        @Override
+        public boolean onFling(MotionEvent e1, MotionEvent e2, float velocityX, float velocityY) {
+            if (mode == DRAG && saveScale > minScale + 0.01f) {
+                startFling(velocityX, velocityY);
+            }
+            // Not consumed, so ACTION_UP still resets the drag state
+            return false;
+        }
     }
 }
 
@@ -0,0 +1,19 @@
+package com.capacitor.mediaviewer;
+
+import androidx.media3.common.Player;
+
+/**
+ * Where the playback engine renders video. Implemented by {@link VideoSurfaceManager} on the
+ * viewer's TextureView; tests can pass their own.
+ */
+public interface VideoOutput {
+    /**
+     * Render {@code player} here. Does nothing if it is already attached.
+     */
+    void attach(Player player);
+
+    /**
+     * Stop rendering {@code player} here, if it is attached.
+     */
+    void detach(Player player);
+}
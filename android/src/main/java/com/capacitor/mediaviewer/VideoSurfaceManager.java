@@ -0,0 +1,157 @@
+package com.capacitor.mediaviewer;
+
+import android.graphics.Matrix;
+import android.graphics.SurfaceTexture;
+import android.util.Log;
+import android.view.Surface;
+import android.view.TextureView;
+import androidx.annotation.NonNull;
+import androidx.media3.common.Player;
+
+/**
+ * Owns the viewer's video output: one TextureView and a single Surface for its SurfaceTexture.
+ * The surface is created when the texture becomes available and kept until the texture is
+ * destroyed, so moving between videos, retrying or switching quality hands the same surface to
+ * the next player instead of building a new one (and making the codec switch outputs).
+ * Letterboxing only updates the view transform, and only when it actually changes.
+ */
+public class VideoSurfaceManager implements TextureView.SurfaceTextureListener, VideoOutput {
+
+    private static final String TAG = "VideoSurfaceManager";
+
+    private final TextureView textureView;
+    private final Matrix transform = new Matrix();
+    private final Matrix scratch = new Matrix();
+    private Surface surface;
+    private Player attachedPlayer;
+    private Runnable pending;
+
+    public VideoSurfaceManager(TextureView textureView) {
+        this.textureView = textureView;
+        textureView.setSurfaceTextureListener(this);
+        textureView.setTransform(transform);
+    }
+
+    /**
+     * The surface for the current texture, or null while the view has none.
+     */
+    public Surface getSurface() {
+        if (surface == null && textureView.isAvailable()) {
+            surface = new Surface(textureView.getSurfaceTexture());
+        }
+        return surface;
+    }
+
+    /**
+     * Run {@code callback} now if there is a surface, otherwise as soon as the texture becomes
+     * available. Replaces any callback still waiting.
+     */
+    public void whenAvailable(Runnable callback) {
+        if (getSurface() != null) {
+            pending = null;
+            callback.run();
+        } else {
+            pending = callback;
+        }
+    }
+
+    /**
+     * Drop a callback still waiting for the texture, e.g. because the viewer moved on.
+     */
+    public void cancelPending() {
+        pending = null;
+    }
+
+    @Override
+    public void attach(Player player) {
+        Surface current = getSurface();
+        if (player == null || current == null || !current.isValid()) {
+            return;
+        }
+        if (attachedPlayer != player) {
+            player.setVideoSurface(current);
+            attachedPlayer = player;
+        }
+    }
+
+    /**
+     * Take the surface away from {@code player} if it has it. The surface itself stays alive.
+     */
+    @Override
+    public void detach(Player player) {
+        if (player != null && player == attachedPlayer) {
+            player.clearVideoSurface(surface);
+            attachedPlayer = null;
+        }
+    }
+
+    /**
+     * Scale the video content to {@code scaleX} x {@code scaleY} of the view and move it by
+     * ({@code dx}, {@code dy}).
+     */
+    public void setContentTransform(float scaleX, float scaleY, float dx, float dy) {
+        scratch.setScale(scaleX, scaleY);
+        scratch.postTranslate(dx, dy);
+        if (!scratch.equals(transform)) {
+            transform.set(scratch);
+            textureView.setTransform(transform);
+        }
+    }
+
+    public void resetTransform() {
+        if (!transform.isIdentity()) {
+            transform.reset();
+            textureView.setTransform(transform);
+        }
+    }
+
+    /**
+     * Detach from the view and free the surface. The manager can't be used afterwards.
+     */
+    public void release() {
+        pending = null;
+        if (attachedPlayer != null) {
+            attachedPlayer.clearVideoSurface(surface);
+            attachedPlayer = null;
+        }
+        textureView.setSurfaceTextureListener(null);
+        releaseSurface();
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(@NonNull SurfaceTexture texture, int width, int height) {
+        // A new texture needs a new surface
+        releaseSurface();
+        if (pending != null) {
+            Runnable callback = pending;
+            pending = null;
+            callback.run();
+        }
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(@NonNull SurfaceTexture texture, int width, int height) {
+        // Content is letterboxed from the video size, not the texture size
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(@NonNull SurfaceTexture texture) {
+        Log.d(TAG, "Surface texture destroyed");
+        if (attachedPlayer != null) {
+            attachedPlayer.clearVideoSurface(surface);
+            attachedPlayer = null;
+        }
+        releaseSurface();
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(@NonNull SurfaceTexture texture) {}
+
+    private void releaseSurface() {
+        if (surface != null) {
+            surface.release();
+            surface = null;
+        }
+    }
+}
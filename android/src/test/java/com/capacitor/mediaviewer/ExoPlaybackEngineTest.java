@@ -0,0 +1,193 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import androidx.annotation.Nullable;
+import androidx.media3.common.Player;
+import androidx.media3.exoplayer.ExoPlayer;
+import androidx.media3.test.utils.FakeMediaSourceFactory;
+import androidx.media3.test.utils.TestExoPlayerBuilder;
+import androidx.media3.test.utils.robolectric.TestPlayerRunHelper;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class ExoPlaybackEngineTest {
+
+    private static final String FIRST = "https://example.com/first.mp4";
+    private static final String SECOND = "https://example.com/second.mp4";
+
+    private final List<ExoPlayer> playerChanges = new ArrayList<>();
+    private final List<PlaybackState> states = new ArrayList<>();
+    private final List<Integer> playbackStates = new ArrayList<>();
+    private final RecordingVideoOutput videoOutput = new RecordingVideoOutput();
+    private ExoPlaybackEngine engine;
+
+    private static class RecordingVideoOutput implements VideoOutput {
+
+        Player attached;
+
+        @Override
+        public void attach(Player player) {
+            attached = player;
+        }
+
+        @Override
+        public void detach(Player player) {
+            if (attached == player) {
+                attached = null;
+            }
+        }
+    }
+
+    private final Player.Listener playerListener = new Player.Listener() {
+        @Override
+        public void onPlaybackStateChanged(int playbackState) {
+            playbackStates.add(playbackState);
+        }
+    };
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.getApplication();
+        // Fake renderers and media on a fake clock, so items play without codecs or network
+        ExoPlayerPool.PlayerFactory factory = (playerContext, loadControl) ->
+            new TestExoPlayerBuilder(playerContext).setLoadControl(loadControl).setMediaSourceFactory(new FakeMediaSourceFactory()).build();
+        ExoPlayerPool pool = new ExoPlayerPool(context, BufferingProfile.forName(BufferingProfile.DEFAULT), factory);
+        engine = new ExoPlaybackEngine(
+            pool,
+            new PlaybackMetricsCollector(metrics -> {}),
+            new PlaybackEngine.Listener() {
+                @Override
+                public void onPlayerChanged(@Nullable ExoPlayer player) {
+                    playerChanges.add(player);
+                }
+
+                @Override
+                public void onPlaybackStateChanged(PlaybackState state) {
+                    states.add(state);
+                }
+            }
+        );
+        engine.setVideoOutput(videoOutput);
+    }
+
+    @After
+    public void tearDown() {
+        engine.release();
+    }
+
+    @Test
+    public void startPlaysOnPooledPlayer() throws Exception {
+        ExoPlayer player = engine.start(FIRST, 0, true, playerListener);
+
+        assertNotNull(player);
+        assertSame(player, engine.getPlayer());
+        assertSame(player, playerChanges.get(0));
+        assertSame(player, videoOutput.attached);
+        TestPlayerRunHelper.runUntilPlaybackState(player, Player.STATE_READY);
+        assertTrue(playbackStates.contains(Player.STATE_READY));
+        assertEquals(FIRST, player.getCurrentMediaItem().mediaId);
+    }
+
+    @Test
+    public void stopHandsPlayerBackForTheNextItem() throws Exception {
+        ExoPlayer first = engine.start(FIRST, 0, true, playerListener);
+        TestPlayerRunHelper.runUntilPlaybackState(first, Player.STATE_READY);
+
+        engine.stop();
+
+        assertNull(engine.getPlayer());
+        assertNull(playerChanges.get(playerChanges.size() - 1));
+        assertNull(videoOutput.attached);
+        assertFalse(first.getPlayWhenReady());
+
+        ExoPlayer second = engine.start(SECOND, 0, true, playerListener);
+        assertSame(first, second);
+        assertEquals(SECOND, second.getCurrentMediaItem().mediaId);
+    }
+
+    @Test
+    public void startUsesPreloadedPlayerAndReplaysItsState() throws Exception {
+        ExoPlayer first = engine.start(FIRST, 0, true, playerListener);
+        engine.preload(SECOND, 5000, 1 << 20);
+        engine.stop();
+        playbackStates.clear();
+
+        ExoPlayer second = engine.start(SECOND, 0, true, playerListener);
+
+        assertNotNull(second);
+        assertNotSame(first, second);
+        assertEquals(SECOND, second.getCurrentMediaItem().mediaId);
+        // The preload's state change happened before the listener was added
+        assertFalse(playbackStates.isEmpty());
+        TestPlayerRunHelper.runUntilPlaybackState(second, Player.STATE_READY);
+    }
+
+    @Test
+    public void nothingStartsAfterRelease() {
+        engine.release();
+        assertNull(engine.start(FIRST, 0, true, playerListener));
+        assertNull(engine.getPlayer());
+        engine.preload(SECOND, 5000, 1 << 20);
+    }
+
+    @Test
+    public void playbackSpeedCarriesOverToTheNextPlayer() throws Exception {
+        ExoPlayer first = engine.start(FIRST, 0, true, playerListener);
+        engine.setPlaybackSpeed(1.5f);
+        assertEquals(1.5f, first.getPlaybackParameters().speed, 0.001f);
+
+        engine.stop();
+        ExoPlayer second = engine.start(SECOND, 0, true, playerListener);
+        assertEquals(1.5f, engine.getPlaybackSpeed(), 0.001f);
+        assertEquals(1.5f, second.getPlaybackParameters().speed, 0.001f);
+    }
+
+    @Test
+    public void qualitySelection() throws Exception {
+        ExoPlayer player = engine.start(FIRST, 0, true, playerListener);
+        TestPlayerRunHelper.runUntilPlaybackState(player, Player.STATE_READY);
+
+        QualityVariant unknown = new QualityVariant();
+        unknown.label = "4320p";
+        unknown.height = 4320;
+        // No track of that height - the caller has to play the variant's own URL
+        assertFalse(engine.selectQuality(FIRST, unknown));
+        assertEquals("4320p", engine.getCurrentQuality());
+
+        // Auto only clears the override on the running player
+        assertTrue(engine.selectQuality(FIRST, null));
+        assertEquals(PlaybackEngine.AUTO_QUALITY, engine.getCurrentQuality());
+
+        // A different item than the one playing can't be switched in place
+        assertFalse(engine.selectQuality(SECOND, null));
+    }
+
+    @Test
+    public void emitsStateOnlyWhilePlaying() throws Exception {
+        engine.emitPlaybackState();
+        assertTrue(states.isEmpty());
+
+        ExoPlayer player = engine.start(FIRST, 0, true, playerListener);
+        TestPlayerRunHelper.runUntilPlaybackState(player, Player.STATE_READY);
+        engine.emitPlaybackState();
+
+        assertEquals(1, states.size());
+        assertEquals(PlaybackEngine.AUTO_QUALITY, states.get(0).currentQuality);
+        assertTrue(states.get(0).duration > 0);
+    }
+}
@@ -0,0 +1,332 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+
+public class GalleryControllerTest {
+
+    private static class RecordingCallback implements Gallery.Callback {
+
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onItemsRequested(int start, int count) {
+            events.add("requested " + start + "+" + count);
+        }
+
+        @Override
+        public void onCurrentIndexShifted(int index) {
+            events.add("shifted " + index);
+        }
+
+        @Override
+        public void onCurrentItemChanged(boolean sameMedia) {
+            events.add("changed " + sameMedia);
+        }
+
+        @Override
+        public void onNeighboursChanged() {
+            events.add("neighbours");
+        }
+
+        @Override
+        public void onPreloadTargetInvalidated() {
+            events.add("preload invalidated");
+        }
+
+        @Override
+        public void onEmpty() {
+            events.add("empty");
+        }
+    }
+
+    private final RecordingCallback callback = new RecordingCallback();
+
+    private static MediaItem item(String path, String type) {
+        MediaItem item = new MediaItem();
+        item.path = path;
+        item.type = type;
+        return item;
+    }
+
+    private static List<MediaItem> items(String... types) {
+        List<MediaItem> items = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            items.add(item("item" + i, types[i]));
+        }
+        return items;
+    }
+
+    private GalleryController gallery(int currentIndex, String... types) {
+        return new GalleryController(new MediaItemPager(items(types), 0, types.length, MediaItemPager.DEFAULT_PAGE_SIZE), currentIndex, callback);
+    }
+
+    @Test
+    public void insertBeforeCurrentShiftsIndexAndPreloadTarget() {
+        GalleryController gallery = gallery(2, "IMAGE", "IMAGE", "VIDEO", "VIDEO");
+        MediaItem current = gallery.getCurrentItem();
+        gallery.setPreloadTargetIndex(3);
+
+        assertTrue(gallery.insert(1, items("IMAGE", "IMAGE")));
+
+        assertEquals(4, gallery.getCurrentIndex());
+        assertSame(current, gallery.getCurrentItem());
+        assertEquals(5, gallery.getPreloadTargetIndex());
+        assertEquals(Arrays.asList("shifted 4", "neighbours"), callback.events);
+    }
+
+    @Test
+    public void insertAtCurrentShiftsIndex() {
+        GalleryController gallery = gallery(1, "IMAGE", "VIDEO");
+        assertTrue(gallery.insert(1, items("IMAGE")));
+        assertEquals(2, gallery.getCurrentIndex());
+        assertEquals("item1", gallery.getCurrentItem().path);
+    }
+
+    @Test
+    public void insertAfterCurrentKeepsIndex() {
+        GalleryController gallery = gallery(0, "VIDEO", "IMAGE", "VIDEO");
+        gallery.setPreloadTargetIndex(2);
+
+        assertTrue(gallery.insert(2, items("IMAGE")));
+
+        assertEquals(0, gallery.getCurrentIndex());
+        assertEquals(3, gallery.getPreloadTargetIndex());
+        assertEquals(Collections.singletonList("neighbours"), callback.events);
+    }
+
+    @Test
+    public void insertBehindPreloadTargetKeepsIt() {
+        GalleryController gallery = gallery(2, "IMAGE", "VIDEO", "IMAGE");
+        gallery.setPreloadTargetIndex(1);
+
+        assertTrue(gallery.insert(2, items("IMAGE")));
+
+        assertEquals(1, gallery.getPreloadTargetIndex());
+        assertEquals(3, gallery.getCurrentIndex());
+    }
+
+    @Test
+    public void insertOutOfRangeIsRejected() {
+        GalleryController gallery = gallery(0, "IMAGE");
+        assertFalse(gallery.insert(-1, items("IMAGE")));
+        assertFalse(gallery.insert(2, items("IMAGE")));
+        assertEquals(1, gallery.size());
+        assertTrue(callback.events.isEmpty());
+    }
+
+    @Test
+    public void removeBeforeCurrentShiftsIndexAndPreloadTarget() {
+        GalleryController gallery = gallery(3, "IMAGE", "IMAGE", "IMAGE", "VIDEO", "VIDEO");
+        MediaItem current = gallery.getCurrentItem();
+        gallery.setPreloadTargetIndex(4);
+
+        assertTrue(gallery.remove(0, 2));
+
+        assertEquals(1, gallery.getCurrentIndex());
+        assertSame(current, gallery.getCurrentItem());
+        assertEquals(2, gallery.getPreloadTargetIndex());
+        assertEquals(Arrays.asList("shifted 1", "neighbours"), callback.events);
+    }
+
+    @Test
+    public void removeCurrentMakesNextItemCurrent() {
+        GalleryController gallery = gallery(1, "IMAGE", "VIDEO", "IMAGE", "VIDEO");
+
+        assertTrue(gallery.remove(1, 2));
+
+        assertEquals(1, gallery.getCurrentIndex());
+        assertEquals("item3", gallery.getCurrentItem().path);
+        assertEquals(Collections.singletonList("changed false"), callback.events);
+    }
+
+    @Test
+    public void removeCurrentAtEndMakesPreviousItemCurrent() {
+        GalleryController gallery = gallery(2, "IMAGE", "IMAGE", "VIDEO");
+
+        assertTrue(gallery.remove(2, 1));
+
+        assertEquals(1, gallery.getCurrentIndex());
+        assertEquals("item1", gallery.getCurrentItem().path);
+    }
+
+    @Test
+    public void removePreloadTargetInvalidatesIt() {
+        GalleryController gallery = gallery(0, "IMAGE", "VIDEO", "IMAGE");
+        gallery.setPreloadTargetIndex(1);
+
+        assertTrue(gallery.remove(1, 1));
+
+        assertEquals(-1, gallery.getPreloadTargetIndex());
+        assertEquals(0, gallery.getCurrentIndex());
+        assertEquals(Arrays.asList("preload invalidated", "neighbours"), callback.events);
+    }
+
+    @Test
+    public void removeAfterPreloadTargetKeepsIt() {
+        GalleryController gallery = gallery(1, "VIDEO", "IMAGE", "IMAGE", "IMAGE");
+        gallery.setPreloadTargetIndex(0);
+
+        assertTrue(gallery.remove(2, 2));
+
+        assertEquals(0, gallery.getPreloadTargetIndex());
+        assertEquals(1, gallery.getCurrentIndex());
+    }
+
+    @Test
+    public void removeEverythingReportsEmpty() {
+        GalleryController gallery = gallery(0, "IMAGE", "VIDEO");
+        gallery.setPreloadTargetIndex(1);
+
+        assertTrue(gallery.remove(0, 2));
+
+        assertEquals(0, gallery.size());
+        assertEquals(Arrays.asList("preload invalidated", "empty"), callback.events);
+    }
+
+    @Test
+    public void removeOutOfRangeIsRejected() {
+        GalleryController gallery = gallery(0, "IMAGE", "IMAGE");
+        assertFalse(gallery.remove(1, 2));
+        assertFalse(gallery.remove(-1, 1));
+        assertFalse(gallery.remove(0, -1));
+        assertTrue(gallery.remove(0, 0));
+        assertEquals(2, gallery.size());
+        assertTrue(callback.events.isEmpty());
+    }
+
+    @Test
+    public void updateCurrentWithSameMediaKeepsVariants() {
+        GalleryController gallery = gallery(0, "VIDEO");
+        List<QualityVariant> variants = new ArrayList<>();
+        gallery.getCurrentItem().qualityVariants = variants;
+        MediaItem replacement = item("item0", "VIDEO");
+        replacement.alt = "New caption";
+
+        assertTrue(gallery.update(0, replacement));
+
+        assertSame(replacement, gallery.getCurrentItem());
+        assertSame(variants, replacement.qualityVariants);
+        assertEquals(Collections.singletonList("changed true"), callback.events);
+    }
+
+    @Test
+    public void updateCurrentWithOtherMedia() {
+        GalleryController gallery = gallery(0, "VIDEO");
+        gallery.getCurrentItem().qualityVariants = new ArrayList<>();
+        MediaItem replacement = item("other", "VIDEO");
+
+        assertTrue(gallery.update(0, replacement));
+
+        assertNull(replacement.qualityVariants);
+        assertEquals(Collections.singletonList("changed false"), callback.events);
+    }
+
+    @Test
+    public void updatePreloadTargetWithOtherMediaInvalidatesIt() {
+        GalleryController gallery = gallery(0, "IMAGE", "VIDEO");
+        gallery.setPreloadTargetIndex(1);
+
+        assertTrue(gallery.update(1, item("other", "VIDEO")));
+
+        assertEquals(-1, gallery.getPreloadTargetIndex());
+        assertEquals(Arrays.asList("preload invalidated", "neighbours"), callback.events);
+    }
+
+    @Test
+    public void updateNeighbourWithSameMediaChangesNothing() {
+        GalleryController gallery = gallery(0, "IMAGE", "VIDEO");
+        gallery.setPreloadTargetIndex(1);
+
+        assertTrue(gallery.update(1, item("item1", "VIDEO")));
+
+        assertEquals(1, gallery.getPreloadTargetIndex());
+        assertTrue(callback.events.isEmpty());
+    }
+
+    @Test
+    public void updateOutOfRangeIsRejected() {
+        GalleryController gallery = gallery(0, "IMAGE");
+        assertFalse(gallery.update(1, item("other", "IMAGE")));
+        assertTrue(callback.events.isEmpty());
+    }
+
+    @Test
+    public void neighboursFollowDirectionOfTravel() {
+        GalleryController gallery = gallery(2, "VIDEO", "VIDEO", "IMAGE", "VIDEO", "IMAGE");
+        gallery.markDisplayed();
+        assertEquals(3, gallery.neighbourIndex(0));
+        assertEquals(1, gallery.neighbourIndex(1));
+        assertEquals(4, gallery.neighbourIndex(2));
+        assertEquals(3, gallery.adjacentVideoIndex());
+
+        assertTrue(gallery.moveToPrevious());
+        gallery.markDisplayed();
+        assertEquals(-1, gallery.getNavigationDirection());
+        assertEquals(0, gallery.neighbourIndex(0));
+        assertEquals(2, gallery.neighbourIndex(1));
+        assertEquals(0, gallery.adjacentVideoIndex());
+    }
+
+    @Test
+    public void requestsMissingPagesAroundCurrentOnce() {
+        List<MediaItem> window = items("IMAGE", "IMAGE");
+        GalleryController gallery = new GalleryController(new MediaItemPager(window, 10, 30, 10), 10, callback);
+
+        gallery.requestItemsAround();
+        gallery.requestItemsAround();
+
+        // Items 5..15 are within half a page; page 1 has 12..15 missing
+        assertEquals(Arrays.asList("requested 0+10", "requested 10+10"), callback.events);
+        assertFalse(gallery.isLoaded(9));
+        assertTrue(gallery.provide(0, items("IMAGE")));
+        assertTrue(gallery.isLoaded(0));
+    }
+
+    @Test
+    public void lateProvideAfterInsertKeepsLoadedItems() {
+        // Window 10..11 of 30, current item 10; pages 0 and 1 get requested
+        GalleryController gallery = new GalleryController(new MediaItemPager(items("VIDEO", "IMAGE"), 10, 30, 10), 10, callback);
+        gallery.requestItemsAround();
+        MediaItem current = gallery.getCurrentItem();
+
+        assertTrue(gallery.insert(0, items("IMAGE", "IMAGE")));
+        assertEquals(12, gallery.getCurrentIndex());
+
+        // The reply to page 1 is aligned to the positions before the insert
+        List<MediaItem> late = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            late.add(item("late" + i, "IMAGE"));
+        }
+        assertTrue(gallery.provide(10, late));
+
+        assertSame(current, gallery.getCurrentItem());
+        assertSame(current, gallery.getItem(12));
+        assertEquals("item1", gallery.getItem(13).path);
+        assertEquals("late0", gallery.getItem(10).path);
+        assertEquals("late4", gallery.getItem(14).path);
+    }
+
+    @Test
+    public void provideOnlyFillsMissingPositions() {
+        GalleryController gallery = new GalleryController(new MediaItemPager(items("IMAGE"), 1, 3, 10), 1, callback);
+        MediaItem loaded = gallery.getCurrentItem();
+
+        assertFalse(gallery.provide(1, items("VIDEO")));
+        assertSame(loaded, gallery.getCurrentItem());
+
+        assertTrue(gallery.provide(0, items("VIDEO", "VIDEO", "VIDEO")));
+        assertSame(loaded, gallery.getItem(1));
+        assertTrue(gallery.isLoaded(0));
+        assertTrue(gallery.isLoaded(2));
+    }
+}
@@ -0,0 +1,76 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HlsAttributeReaderTest {
+
+    private static HlsAttributeReader reader(String attributes) {
+        HlsAttributeReader reader = new HlsAttributeReader();
+        reader.reset(attributes, 0, attributes.length());
+        return reader;
+    }
+
+    @Test
+    public void quotedValueKeepsCommas() {
+        HlsAttributeReader reader = reader("CODECS=\"avc1.640028,mp4a.40.2\",BANDWIDTH=5000000");
+        assertTrue(reader.next());
+        assertTrue(reader.nameIs("CODECS"));
+        assertEquals("avc1.640028,mp4a.40.2", reader.stringValue());
+        assertTrue(reader.next());
+        assertTrue(reader.nameIs("BANDWIDTH"));
+        assertEquals(5000000L, reader.longValue());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void emptyValues() {
+        HlsAttributeReader reader = reader("NAME=\"\",BANDWIDTH=,RESOLUTION=");
+        assertTrue(reader.next());
+        assertEquals("", reader.stringValue());
+        assertTrue(reader.next());
+        assertEquals(-1L, reader.longValue());
+        assertTrue(reader.next());
+        assertEquals(-1, reader.resolutionWidth());
+        assertEquals(-1, reader.resolutionHeight());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void attributeWithoutValueIsSkipped() {
+        HlsAttributeReader reader = reader("PROGRAM-ID,BANDWIDTH=800000");
+        assertTrue(reader.next());
+        assertTrue(reader.nameIs("BANDWIDTH"));
+        assertEquals(800000L, reader.longValue());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    public void emptyList() {
+        assertFalse(reader("").next());
+    }
+
+    @Test
+    public void numbersAndResolution() {
+        HlsAttributeReader reader = reader("RESOLUTION=1920x1080, FRAME-RATE=29.970,BANDWIDTH=12abc");
+        assertTrue(reader.next());
+        assertEquals(1920, reader.resolutionWidth());
+        assertEquals(1080, reader.resolutionHeight());
+        assertTrue(reader.next());
+        assertTrue(reader.nameIs("FRAME-RATE"));
+        assertEquals(29.97f, reader.floatValue(), 0.001f);
+        assertTrue(reader.next());
+        assertEquals(-1L, reader.longValue());
+    }
+
+    @Test
+    public void unterminatedQuoteRunsToEnd() {
+        HlsAttributeReader reader = reader("NAME=\"English");
+        assertTrue(reader.next());
+        assertEquals("English", reader.stringValue());
+        assertFalse(reader.next());
+    }
+}
@@ -0,0 +1,178 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class HlsPlaylistParserTest {
+
+    private static final String BASE = "https://cdn.example.com/videos/master.m3u8";
+
+    private static HlsMasterPlaylist parse(String playlist, String url) throws IOException {
+        return HlsPlaylistParser.parse(new BufferedReader(new StringReader(playlist)), url);
+    }
+
+    @Test
+    public void variantWithQuotedCodecs() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=5000000,AVERAGE-BANDWIDTH=4500000,CODECS=\"avc1.640028,mp4a.40.2\"," +
+            "RESOLUTION=1920x1080,FRAME-RATE=30.000,AUDIO=\"aud\",HDCP-LEVEL=TYPE-0,VIDEO-RANGE=SDR\n" +
+            "1080/index.m3u8\n",
+            BASE
+        );
+        assertEquals(1, playlist.variants.size());
+        QualityVariant variant = playlist.variants.get(0);
+        assertEquals("1080p", variant.label);
+        assertEquals(1920, variant.width);
+        assertEquals(1080, variant.height);
+        assertEquals(5000000L, variant.bandwidth);
+        assertEquals(4500000L, variant.averageBandwidth);
+        assertEquals("avc1.640028,mp4a.40.2", variant.codecs);
+        assertEquals(30f, variant.frameRate, 0.001f);
+        assertEquals("aud", variant.audioGroup);
+        assertEquals("TYPE-0", variant.hdcpLevel);
+        assertEquals("SDR", variant.videoRange);
+        assertEquals("https://cdn.example.com/videos/1080/index.m3u8", variant.url);
+    }
+
+    @Test
+    public void missingAttributes() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\n" +
+            // Neither RESOLUTION nor BANDWIDTH - not selectable, and its URI is not taken by the next tag
+            "#EXT-X-STREAM-INF:CODECS=\"avc1.4d401f\"\n" +
+            "none.m3u8\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1500000\n" +
+            "mid.m3u8\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=,RESOLUTION=\n" +
+            "empty.m3u8\n",
+            BASE
+        );
+        assertEquals(1, playlist.variants.size());
+        QualityVariant variant = playlist.variants.get(0);
+        assertEquals("HD", variant.label);
+        assertEquals(0, variant.height);
+        assertNull(variant.codecs);
+        assertEquals("https://cdn.example.com/videos/mid.m3u8", variant.url);
+    }
+
+    @Test
+    public void bandwidthBuckets() {
+        assertEquals("SD", HlsPlaylistParser.labelFor(0, 400000));
+        assertEquals("HD", HlsPlaylistParser.labelFor(0, 1000000));
+        assertEquals("Full HD", HlsPlaylistParser.labelFor(0, 6000000));
+        assertEquals("720p", HlsPlaylistParser.labelFor(720, 6000000));
+        assertNull(HlsPlaylistParser.labelFor(0, 0));
+    }
+
+    @Test
+    public void iFrameStreamsAndRenditions() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\n" +
+            "#EXT-X-MEDIA:TYPE=AUDIO,GROUP-ID=\"aud\",NAME=\"English, stereo\",LANGUAGE=\"en\",DEFAULT=YES," +
+            "AUTOSELECT=YES,CHANNELS=\"2\",URI=\"audio/en.m3u8\"\n" +
+            "#EXT-X-MEDIA:TYPE=CLOSED-CAPTIONS,GROUP-ID=\"cc\",NAME=\"CC1\",INSTREAM-ID=\"CC1\",FORCED=NO\n" +
+            "#EXT-X-I-FRAME-STREAM-INF:BANDWIDTH=200000,RESOLUTION=640x360,URI=\"iframe/360.m3u8\"\n" +
+            "#EXT-X-I-FRAME-STREAM-INF:BANDWIDTH=300000\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=800000,RESOLUTION=640x360,AUDIO=\"aud\",CLOSED-CAPTIONS=\"cc\"\n" +
+            "360.m3u8\n",
+            BASE
+        );
+
+        assertEquals(2, playlist.renditions.size());
+        HlsRendition audio = playlist.renditions.get(0);
+        assertEquals("AUDIO", audio.type);
+        assertEquals("aud", audio.groupId);
+        assertEquals("English, stereo", audio.name);
+        assertEquals("en", audio.language);
+        assertEquals("2", audio.channels);
+        assertTrue(audio.isDefault);
+        assertTrue(audio.autoSelect);
+        assertFalse(audio.forced);
+        assertEquals("https://cdn.example.com/videos/audio/en.m3u8", audio.url);
+        HlsRendition captions = playlist.renditions.get(1);
+        assertEquals("CLOSED-CAPTIONS", captions.type);
+        assertEquals("CC1", captions.instreamId);
+        assertNull(captions.url);
+
+        // The I-frame stream without URI is dropped; neither one is a playable variant
+        assertEquals(1, playlist.iFrameVariants.size());
+        assertEquals("360p", playlist.iFrameVariants.get(0).label);
+        assertEquals("https://cdn.example.com/videos/iframe/360.m3u8", playlist.iFrameVariants.get(0).url);
+        assertEquals(1, playlist.variants.size());
+        assertEquals("cc", playlist.variants.get(0).closedCaptions);
+    }
+
+    @Test
+    public void blankAndCommentLinesBeforeUri() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\r\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=2000000,RESOLUTION=1280x720\r\n" +
+            "\r\n" +
+            "# comment\r\n" +
+            "   \t\r\n" +
+            "#EXT-X-UNKNOWN-TAG:FOO=BAR\r\n" +
+            "  720.m3u8  \r\n",
+            BASE
+        );
+        assertEquals(1, playlist.variants.size());
+        assertEquals("720p", playlist.variants.get(0).label);
+        assertEquals("https://cdn.example.com/videos/720.m3u8", playlist.variants.get(0).url);
+    }
+
+    @Test
+    public void uriWithoutTagIsIgnored() throws IOException {
+        HlsMasterPlaylist playlist = parse("#EXTM3U\nstray.m3u8\n", BASE);
+        assertTrue(playlist.variants.isEmpty());
+    }
+
+    @Test
+    public void relativeUrisAgainstBaseWithQuery() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x240\n" +
+            "240.m3u8?token=abc\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x360\n" +
+            "/root/360.m3u8\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x480\n" +
+            "../480.m3u8\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x720\n" +
+            "http://other.example.com/720.m3u8\n" +
+            "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x1080\n" +
+            "//cdn2.example.com/1080.m3u8\n",
+            "https://cdn.example.com/videos/master.m3u8?token=xyz&exp=1"
+        );
+        assertEquals(5, playlist.variants.size());
+        assertEquals("https://cdn.example.com/videos/240.m3u8?token=abc", playlist.variants.get(0).url);
+        assertEquals("https://cdn.example.com/root/360.m3u8", playlist.variants.get(1).url);
+        assertEquals("https://cdn.example.com/480.m3u8", playlist.variants.get(2).url);
+        assertEquals("http://other.example.com/720.m3u8", playlist.variants.get(3).url);
+        assertEquals("https://cdn2.example.com/1080.m3u8", playlist.variants.get(4).url);
+    }
+
+    @Test
+    public void unparseableBaseKeepsUrisAsGiven() throws IOException {
+        HlsMasterPlaylist playlist = parse(
+            "#EXTM3U\n" + "#EXT-X-STREAM-INF:BANDWIDTH=1,RESOLUTION=1x240\n" + "240.m3u8\n",
+            "not a url"
+        );
+        assertEquals("240.m3u8", playlist.variants.get(0).url);
+    }
+
+    @Test
+    public void resolveUrl() {
+        assertEquals(
+            "https://cdn.example.com/a/b.m3u8",
+            HlsPlaylistParser.resolveUrl(HlsPlaylistParser.parseBaseUrl("https://cdn.example.com/a/master.m3u8"), "b.m3u8")
+        );
+        assertEquals("https://x.example.com/b.m3u8", HlsPlaylistParser.resolveUrl(null, "https://x.example.com/b.m3u8"));
+        assertEquals("b.m3u8", HlsPlaylistParser.resolveUrl(null, "b.m3u8"));
+    }
+}
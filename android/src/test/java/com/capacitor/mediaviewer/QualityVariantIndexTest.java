@@ -0,0 +1,195 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Test;
+
+public class QualityVariantIndexTest {
+
+    private static final String[] LABEL_PARTS = {
+        "144p", "240p", "360p", "480p", "540p", "720p", "1080p", "1440p", "2160p", "4K", "4k UHD", "Full HD", "HD", "SD",
+        "HD 720", "1080 p", "720P60", "v1080", "360", "480", "2500", "299", "99999999999p", "Audio only", "Low", "High",
+        "1280x720", "hd_720", "sd-480", ""
+    };
+    private static final int[][] SIZES = {
+        { 256, 144 }, { 426, 240 }, { 640, 360 }, { 854, 480 }, { 960, 540 }, { 1280, 720 }, { 1920, 1080 },
+        { 2560, 1440 }, { 3840, 2160 }, { 1920, 800 }, { 1440, 1080 }, { 720, 1280 }, { 1080, 1920 }, { 640, 352 }
+    };
+
+    private static List<QualityVariant> variants(String... labels) {
+        List<QualityVariant> variants = new ArrayList<>();
+        for (String label : labels) {
+            QualityVariant variant = new QualityVariant();
+            variant.label = label;
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    @Test
+    public void extractHeightFromLabel() {
+        assertEquals(720, QualityVariantIndex.extractHeightFromLabel("720p"));
+        assertEquals(1080, QualityVariantIndex.extractHeightFromLabel("1080 P"));
+        assertEquals(720, QualityVariantIndex.extractHeightFromLabel("HD 720"));
+        assertEquals(60, QualityVariantIndex.extractHeightFromLabel("1280x720 60p"));
+        assertEquals(0, QualityVariantIndex.extractHeightFromLabel("2600"));
+        assertEquals(0, QualityVariantIndex.extractHeightFromLabel("v1080"));
+        assertEquals(0, QualityVariantIndex.extractHeightFromLabel("Full HD"));
+        assertEquals(0, QualityVariantIndex.extractHeightFromLabel(""));
+    }
+
+    @Test
+    public void matchesExactThenCloseThenPattern() {
+        QualityVariantIndex index = QualityVariantIndex.of(variants("1080p", "720p", "480p", "Full HD"));
+        assertEquals("720p", index.match(1280, 720));
+        assertEquals("720p", index.match(1280, 688));
+        assertEquals("480p", index.match(960, 540));
+        assertEquals("1080p", index.match(3840, 2160));
+        assertNull(QualityVariantIndex.of(variants("Low", "High")).match(1280, 720));
+        assertEquals("HD", QualityVariantIndex.of(variants("Low", "HD")).match(1280, 720));
+    }
+
+    @Test
+    public void matchesFirstInListOrderOnTies() {
+        QualityVariantIndex index = QualityVariantIndex.of(variants("720p", "720p HDR", "1080p"));
+        assertEquals("720p", index.match(1280, 720));
+        index = QualityVariantIndex.of(variants("760p", "680p"));
+        assertEquals("760p", index.match(1280, 720));
+    }
+
+    @Test
+    public void sameResultsAsRegexImplementation() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20000; round++) {
+            String[] labels = new String[1 + random.nextInt(6)];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = LABEL_PARTS[random.nextInt(LABEL_PARTS.length)];
+            }
+            List<QualityVariant> variants = variants(labels);
+            QualityVariantIndex index = QualityVariantIndex.of(variants);
+            for (int query = 0; query < 10; query++) {
+                int width;
+                int height;
+                if (random.nextBoolean()) {
+                    int[] size = SIZES[random.nextInt(SIZES.length)];
+                    width = size[0];
+                    height = size[1];
+                } else {
+                    width = 1 + random.nextInt(4000);
+                    height = 1 + random.nextInt(2400);
+                }
+                assertEquals(
+                    Arrays.toString(labels) + " " + width + "x" + height,
+                    RegexQualityMatcher.detectQualityFromSize(width, height, variants),
+                    index.match(width, height)
+                );
+            }
+            for (String label : labels) {
+                assertEquals(label, RegexQualityMatcher.extractHeightFromLabel(label), QualityVariantIndex.extractHeightFromLabel(label));
+            }
+        }
+    }
+
+    /**
+     * The viewer's original matching, kept as the reference the index has to agree with.
+     */
+    private static final class RegexQualityMatcher {
+
+        static String detectQualityFromSize(int width, int height, List<QualityVariant> variants) {
+            if (variants == null || variants.isEmpty()) {
+                return null;
+            }
+
+            QualityVariant bestMatch = null;
+            int minHeightDiff = Integer.MAX_VALUE;
+            int totalPixels = width * height;
+
+            for (QualityVariant variant : variants) {
+                int variantHeight = extractHeightFromLabel(variant.label);
+                if (variantHeight > 0) {
+                    int heightDiff = Math.abs(variantHeight - height);
+                    if (heightDiff < minHeightDiff) {
+                        minHeightDiff = heightDiff;
+                        bestMatch = variant;
+                    }
+                    if (heightDiff <= 10) {
+                        return variant.label;
+                    }
+                }
+            }
+
+            if (bestMatch != null && minHeightDiff <= 50) {
+                return bestMatch.label;
+            }
+
+            for (QualityVariant variant : variants) {
+                String label = variant.label.toLowerCase();
+                if ((label.contains("4k") || label.contains("2160")) && height >= 2000 && totalPixels >= 3500000) {
+                    return variant.label;
+                }
+            }
+            for (QualityVariant variant : variants) {
+                String label = variant.label.toLowerCase();
+                if (
+                    (label.contains("1080") || label.contains("full hd")) &&
+                    height >= 1000 &&
+                    height < 2000 &&
+                    totalPixels >= 1800000 &&
+                    totalPixels < 3500000
+                ) {
+                    return variant.label;
+                }
+            }
+            for (QualityVariant variant : variants) {
+                String label = variant.label.toLowerCase();
+                if ((label.contains("720") || label.contains("hd")) && height >= 650 && height < 1000 && totalPixels >= 800000 && totalPixels < 1800000) {
+                    return variant.label;
+                }
+            }
+            for (QualityVariant variant : variants) {
+                String label = variant.label.toLowerCase();
+                if ((label.contains("480") || label.contains("sd")) && height >= 400 && height < 650 && totalPixels >= 300000 && totalPixels < 800000) {
+                    return variant.label;
+                }
+            }
+            for (QualityVariant variant : variants) {
+                String label = variant.label.toLowerCase();
+                if (label.contains("360") && height >= 300 && height < 400 && totalPixels >= 100000 && totalPixels < 300000) {
+                    return variant.label;
+                }
+            }
+
+            return bestMatch != null ? bestMatch.label : null;
+        }
+
+        static int extractHeightFromLabel(String label) {
+            label = label.toLowerCase().trim();
+
+            Matcher matcher = Pattern.compile("(\\d+)\\s*p").matcher(label);
+            if (matcher.find()) {
+                try {
+                    return Integer.parseInt(matcher.group(1));
+                } catch (NumberFormatException e) {
+                    // Ignore
+                }
+            }
+
+            matcher = Pattern.compile("\\b(\\d{3,4})\\b").matcher(label);
+            if (matcher.find()) {
+                int value = Integer.parseInt(matcher.group(1));
+                if (value == 360 || value == 480 || value == 720 || value == 1080 || value == 2160 || (value >= 300 && value <= 2500)) {
+                    return value;
+                }
+            }
+
+            return 0;
+        }
+    }
+}
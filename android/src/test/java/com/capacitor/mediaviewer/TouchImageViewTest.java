@@ -0,0 +1,291 @@
+package com.capacitor.mediaviewer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Activity;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Looper;
+import android.view.GestureDetector;
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.ViewGroup;
+import android.view.ViewParent;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.GraphicsMode;
+
+/**
+ * Robolectric's Java shadows of VelocityTracker, ScaleGestureDetector and ViewGroup allocate where
+ * the platform doesn't, so the allocation tests feed the same events to bare framework detectors
+ * and assert the view allocates nothing on top of them. Graphics run natively, so Matrix
+ * operations don't allocate either.
+ */
+@RunWith(RobolectricTestRunner.class)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class TouchImageViewTest {
+
+    private static final int VIEW_SIZE = 1000;
+    private static final Duration FRAME = Duration.ofMillis(16);
+
+    // Passes before the measured ones, so class loading and JIT compilation are not counted
+    private static final int WARM_UP_PASSES = 20;
+    // Measured passes; the least each side allocated counts, filtering out one-off allocations
+    private static final int MEASURED_PASSES = 5;
+
+    private RecordingTouchImageView view;
+    private long eventTime;
+
+    /**
+     * Records every matrix handed to ImageView, i.e. every commit.
+     */
+    private static class RecordingTouchImageView extends TouchImageView {
+
+        List<Matrix> committed;
+
+        RecordingTouchImageView(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void setImageMatrix(Matrix matrix) {
+            // Also called from the superclass constructor, before the field is initialised
+            if (committed == null) {
+                committed = new ArrayList<>();
+            }
+            committed.add(matrix);
+            super.setImageMatrix(matrix);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        // Attached to a window, so commits posted with postOnAnimation actually run
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        view = new RecordingTouchImageView(activity);
+        view.setImageDrawable(new BitmapDrawable(activity.getResources(), Bitmap.createBitmap(4000, 4000, Bitmap.Config.ARGB_8888)));
+        activity.setContentView(view, new ViewGroup.LayoutParams(VIEW_SIZE, VIEW_SIZE));
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(VIEW_SIZE, view.getWidth());
+        view.fitToScreenPublic();
+        assertEquals(0.25f, view.getCurrentScale(), 0.001f);
+
+        // Double tap to zoom in, then let the zoom animation finish
+        eventTime = 1000;
+        touch(MotionEvent.ACTION_DOWN, 500, 500, 0);
+        touch(MotionEvent.ACTION_UP, 500, 500, 50);
+        touch(MotionEvent.ACTION_DOWN, 500, 500, 100);
+        touch(MotionEvent.ACTION_UP, 500, 500, 50);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1000));
+        assertEquals(0.5f, view.getCurrentScale(), 0.001f);
+        view.committed.clear();
+    }
+
+    @Test
+    public void dragCommitsOncePerFrame() {
+        touch(MotionEvent.ACTION_DOWN, 500, 500, 0);
+        for (int frame = 0; frame < 10; frame++) {
+            for (int i = 0; i < 5; i++) {
+                touch(MotionEvent.ACTION_MOVE, 500 - frame * 10 - i, 500 - frame * 10 - i, 2);
+            }
+            assertEquals(frame, view.committed.size());
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+            assertEquals(frame + 1, view.committed.size());
+        }
+        touch(MotionEvent.ACTION_UP, 400, 400, 2);
+    }
+
+    @Test
+    public void replacingDrawableDuringZoomAnimationKeepsItsPlace() {
+        // Double tap back to fit and stop partway through the animation
+        touch(MotionEvent.ACTION_DOWN, 500, 500, 1000);
+        touch(MotionEvent.ACTION_UP, 500, 500, 50);
+        touch(MotionEvent.ACTION_DOWN, 500, 500, 100);
+        touch(MotionEvent.ACTION_UP, 500, 500, 50);
+        for (int frame = 0; frame < 3; frame++) {
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+        }
+        float width = view.getCurrentScale() * 4000;
+        assertTrue(width > VIEW_SIZE && width < 2 * VIEW_SIZE);
+
+        // A decode at half the size arrives mid-animation
+        view.replaceDrawableKeepingZoom(new BitmapDrawable(view.getResources(), Bitmap.createBitmap(2000, 2000, Bitmap.Config.ARGB_8888)));
+        assertEquals(width, view.getCurrentScale() * 2000, 0.5f);
+
+        // The animation carries on shrinking the image towards the fitted width
+        for (int frame = 0; frame < 30; frame++) {
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+            float next = view.getCurrentScale() * 2000;
+            assertTrue(next <= width + 0.5f && next >= VIEW_SIZE - 0.5f);
+            width = next;
+        }
+        assertEquals(0.5f, view.getCurrentScale(), 0.001f);
+    }
+
+    @Test
+    public void dragAllocatesNothing() {
+        GestureDetector gestures = new GestureDetector(view.getContext(), new GestureDetector.SimpleOnGestureListener());
+        MotionEvent down = event(MotionEvent.ACTION_DOWN, 500, 500);
+        MotionEvent up = event(MotionEvent.ACTION_UP, 500, 500);
+        MotionEvent[] moves = new MotionEvent[50];
+        for (int i = 0; i < moves.length; i++) {
+            // Drag away and back again
+            float offset = 4 * Math.min(i, moves.length - 1 - i);
+            moves[i] = event(MotionEvent.ACTION_MOVE, 500 - offset, 500 - offset);
+        }
+
+        long viewBytes = Long.MAX_VALUE;
+        long frameworkBytes = Long.MAX_VALUE;
+        for (int pass = 0; pass < WARM_UP_PASSES + MEASURED_PASSES; pass++) {
+            view.onTouch(view, down);
+            long bytes = allocatedBytes(moves, event -> view.onTouch(view, event));
+            view.onTouch(view, up);
+
+            // What the view's own detector costs without the view
+            gestures.onTouchEvent(down);
+            long reference = allocatedBytes(moves, gestures::onTouchEvent);
+            gestures.onTouchEvent(up);
+
+            if (pass >= WARM_UP_PASSES) {
+                viewBytes = Math.min(viewBytes, bytes);
+                frameworkBytes = Math.min(frameworkBytes, reference);
+            }
+        }
+        assertTrue(view.committed.size() > 0);
+        assertEquals(0, viewBytes - frameworkBytes);
+
+        recycle(down, up);
+        recycle(moves);
+    }
+
+    @Test
+    public void pinchAllocatesNothing() {
+        ScaleGestureDetector scales = new ScaleGestureDetector(
+            view.getContext(),
+            new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+                @Override
+                public boolean onScale(ScaleGestureDetector detector) {
+                    // The getters the view reads, which Robolectric's shadow answers reflectively
+                    detector.getScaleFactor();
+                    detector.getFocusX();
+                    detector.getFocusY();
+                    return true;
+                }
+            }
+        );
+        ViewParent parent = view.getParent();
+        MotionEvent down = event(MotionEvent.ACTION_DOWN, 400, 500);
+        MotionEvent pointerDown = pinchEvent(MotionEvent.ACTION_POINTER_DOWN | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 200);
+        MotionEvent pointerUp = pinchEvent(MotionEvent.ACTION_POINTER_UP | (1 << MotionEvent.ACTION_POINTER_INDEX_SHIFT), 200);
+        MotionEvent up = event(MotionEvent.ACTION_UP, 400, 500);
+        MotionEvent[] moves = new MotionEvent[50];
+        for (int i = 0; i < moves.length; i++) {
+            // Pinch out and back in again
+            moves[i] = pinchEvent(MotionEvent.ACTION_MOVE, 200 + 8 * Math.min(i, moves.length - 1 - i));
+        }
+
+        long viewBytes = Long.MAX_VALUE;
+        long frameworkBytes = Long.MAX_VALUE;
+        for (int pass = 0; pass < WARM_UP_PASSES + MEASURED_PASSES; pass++) {
+            view.onTouch(view, down);
+            view.onTouch(view, pointerDown);
+            long bytes = allocatedBytes(moves, event -> view.onTouch(view, event));
+            view.onTouch(view, pointerUp);
+            view.onTouch(view, up);
+
+            // The view only hands two-finger events to its scale detector
+            scales.onTouchEvent(pointerDown);
+            long reference =
+                allocatedBytes(
+                    moves,
+                    event -> {
+                        scales.onTouchEvent(event);
+                        parent.requestDisallowInterceptTouchEvent(true);
+                    }
+                );
+            scales.onTouchEvent(pointerUp);
+
+            if (pass >= WARM_UP_PASSES) {
+                viewBytes = Math.min(viewBytes, bytes);
+                frameworkBytes = Math.min(frameworkBytes, reference);
+            }
+        }
+        assertTrue(view.committed.size() > 0);
+        assertEquals(0, viewBytes - frameworkBytes);
+
+        recycle(down, pointerDown, pointerUp, up);
+        recycle(moves);
+    }
+
+    /**
+     * Bytes allocated on this thread while {@code handler} takes {@code moves}, five per frame.
+     * The first move of a frame is left out: it posts the matrix commit, and what Robolectric's
+     * Choreographer allocates for that depends on its queue. The frames themselves run outside the
+     * measurement too.
+     */
+    private static long allocatedBytes(MotionEvent[] moves, Consumer<MotionEvent> handler) {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocated = 0;
+        for (int i = 0; i < moves.length; i += 5) {
+            handler.accept(moves[i]);
+            long before = threads.getCurrentThreadAllocatedBytes();
+            for (int j = i + 1; j < i + 5; j++) {
+                handler.accept(moves[j]);
+            }
+            allocated += threads.getCurrentThreadAllocatedBytes() - before;
+            shadowOf(Looper.getMainLooper()).idleFor(FRAME);
+        }
+        return allocated;
+    }
+
+    private void touch(int action, float x, float y, long afterMs) {
+        eventTime += afterMs;
+        MotionEvent event = MotionEvent.obtain(0, eventTime, action, x, y, 0);
+        view.onTouch(view, event);
+        event.recycle();
+    }
+
+    private MotionEvent event(int action, float x, float y) {
+        eventTime += 2;
+        return MotionEvent.obtain(0, eventTime, action, x, y, 0);
+    }
+
+    /**
+     * A two-finger event with the fingers {@code spread} pixels apart around the view's centre.
+     */
+    private MotionEvent pinchEvent(int action, int spread) {
+        eventTime += 2;
+        MotionEvent.PointerProperties[] properties = new MotionEvent.PointerProperties[2];
+        MotionEvent.PointerCoords[] coords = new MotionEvent.PointerCoords[2];
+        for (int i = 0; i < 2; i++) {
+            properties[i] = new MotionEvent.PointerProperties();
+            properties[i].id = i;
+            properties[i].toolType = MotionEvent.TOOL_TYPE_FINGER;
+            coords[i] = new MotionEvent.PointerCoords();
+            coords[i].x = VIEW_SIZE / 2f + (i == 0 ? -spread : spread) / 2f;
+            coords[i].y = VIEW_SIZE / 2f;
+            coords[i].pressure = 1;
+            coords[i].size = 1;
+        }
+        return MotionEvent.obtain(0, eventTime, action, 2, properties, coords, 0, 0, 1, 1, 0, 0, 0, 0);
+    }
+
+    private static void recycle(MotionEvent... events) {
+        for (MotionEvent event : events) {
+            event.recycle();
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.capacitor.mediaviewer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Parsing generated master playlists, next to the original regex parser, and resolving the
+ * relative URIs they contain.
+ */
+@State(Scope.Benchmark)
+public class HlsPlaylistParserBenchmark {
+
+    private static final String PLAYLIST_URL = "https://cdn.example.com/videos/abc123/master.m3u8?token=xyz";
+    private static final String SHORT_CODECS = "avc1.640028,mp4a.40.2";
+    private static final String LONG_CODECS =
+        "avc1.640028,hvc1.2.4.L153.B0,dvh1.05.06,av01.0.08M.10.0.110.09.16.09.0," +
+        "mp4a.40.2,mp4a.40.5,ac-3,ec-3,ac-4.02.01.01,opus,stpp.ttml.im1t,wvtt";
+    private static final int[][] SIZES = { { 426, 240 }, { 640, 360 }, { 854, 480 }, { 1280, 720 }, { 1920, 1080 }, { 3840, 2160 } };
+
+    // Number of #EXT-X-STREAM-INF variants; every sixth one is also listed as an I-frame variant
+    @Param({ "6", "60", "600" })
+    public int variantCount;
+
+    // CODECS of each variant: one video and one audio codec, or a long multi-codec list
+    @Param({ "short", "long" })
+    public String codecs;
+
+    private String playlist;
+    private URL base;
+    private String[] uris;
+
+    @Setup
+    public void setUp() {
+        StringBuilder builder = new StringBuilder("#EXTM3U\n#EXT-X-VERSION:6\n#EXT-X-INDEPENDENT-SEGMENTS\n");
+        for (int i = 0; i < 4; i++) {
+            builder
+                .append("#EXT-X-MEDIA:TYPE=AUDIO,GROUP-ID=\"aac\",LANGUAGE=\"l")
+                .append(i)
+                .append("\",NAME=\"Audio ")
+                .append(i)
+                .append("\",DEFAULT=")
+                .append(i == 0 ? "YES" : "NO")
+                .append(",AUTOSELECT=YES,CHANNELS=\"2\",URI=\"audio/")
+                .append(i)
+                .append("/index.m3u8\"\n");
+        }
+        String codecList = "long".equals(codecs) ? LONG_CODECS : SHORT_CODECS;
+        uris = new String[variantCount];
+        for (int i = 0; i < variantCount; i++) {
+            int[] size = SIZES[i % SIZES.length];
+            long bandwidth = 300000L + 400000L * i;
+            uris[i] = "video/" + size[1] + "p_" + i + "/index.m3u8";
+            builder
+                .append("#EXT-X-STREAM-INF:BANDWIDTH=")
+                .append(bandwidth)
+                .append(",AVERAGE-BANDWIDTH=")
+                .append(bandwidth * 9 / 10)
+                .append(",CODECS=\"")
+                .append(codecList)
+                .append("\",RESOLUTION=")
+                .append(size[0])
+                .append('x')
+                .append(size[1])
+                .append(",FRAME-RATE=29.970,AUDIO=\"aac\",CLOSED-CAPTIONS=NONE\n")
+                .append(uris[i])
+                .append('\n');
+            if (i % SIZES.length == 0) {
+                builder
+                    .append("#EXT-X-I-FRAME-STREAM-INF:BANDWIDTH=")
+                    .append(bandwidth / 10)
+                    .append(",CODECS=\"avc1.640028\",RESOLUTION=")
+                    .append(size[0])
+                    .append('x')
+                    .append(size[1])
+                    .append(",URI=\"iframes/")
+                    .append(i)
+                    .append(".m3u8\"\n");
+            }
+        }
+        playlist = builder.toString();
+        base = HlsPlaylistParser.parseBaseUrl(PLAYLIST_URL);
+    }
+
+    @Benchmark
+    public HlsMasterPlaylist parse() throws IOException {
+        return HlsPlaylistParser.parse(new BufferedReader(new StringReader(playlist)), PLAYLIST_URL);
+    }
+
+    @Benchmark
+    public List<QualityVariant> parseRegexBaseline() {
+        return RegexHlsPlaylistParser.parseMasterPlaylist(new BufferedReader(new StringReader(playlist)), PLAYLIST_URL);
+    }
+
+    @Benchmark
+    public int resolveUrls() {
+        int length = 0;
+        for (String uri : uris) {
+            length += HlsPlaylistParser.resolveUrl(base, uri).length();
+        }
+        return length;
+    }
+}
@@ -0,0 +1,45 @@
+package com.capacitor.mediaviewer;
+
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Decoding the items show() receives. The bridge hands the plugin an already parsed array, so
+ * only the conversion to MediaItems is measured.
+ */
+@State(Scope.Benchmark)
+public class MediaItemDecoderBenchmark {
+
+    @Param({ "10", "1000", "10000" })
+    public int itemCount;
+
+    private JSONArray items;
+
+    @Setup
+    public void setUp() throws JSONException {
+        items = new JSONArray();
+        for (int i = 0; i < itemCount; i++) {
+            JSONObject item = new JSONObject();
+            boolean video = i % 4 == 0;
+            item.put("path", "https://cdn.example.com/album/" + i + (video ? "/master.m3u8" : ".jpg"));
+            item.put("type", video ? "VIDEO" : "IMAGE");
+            item.put("alt", "Item " + i);
+            if (video) {
+                item.put("thumbnail", "https://cdn.example.com/album/" + i + "/poster.jpg");
+            }
+            items.put(item);
+        }
+    }
+
+    @Benchmark
+    public List<MediaItem> decodeItems() throws JSONException {
+        return MediaItemDecoder.decodeItems(items);
+    }
+}
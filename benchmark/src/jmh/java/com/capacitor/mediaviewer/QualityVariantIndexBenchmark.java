@@ -0,0 +1,58 @@
+package com.capacitor.mediaviewer;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Quality detection from the decoded video size, as run on every video size change.
+ */
+@State(Scope.Benchmark)
+public class QualityVariantIndexBenchmark {
+
+    private static final String[] LABELS = { "2160p", "1080p", "720p", "480p", "360p", "240p", "Full HD", "SD" };
+    private static final int[][] SIZES = { { 3840, 2160 }, { 1920, 1080 }, { 1280, 720 }, { 960, 540 }, { 640, 352 }, { 1920, 800 } };
+
+    private List<QualityVariant> variants;
+    private QualityVariantIndex index;
+
+    @Setup
+    public void setUp() {
+        variants = new ArrayList<>();
+        for (String label : LABELS) {
+            QualityVariant variant = new QualityVariant();
+            variant.label = label;
+            variants.add(variant);
+        }
+        index = QualityVariantIndex.of(variants);
+    }
+
+    @Benchmark
+    public QualityVariantIndex buildIndex() {
+        return QualityVariantIndex.of(variants);
+    }
+
+    // All sizes against an index built once, as the viewer does per video
+    @Benchmark
+    public int match() {
+        int found = 0;
+        for (int[] size : SIZES) {
+            if (index.match(size[0], size[1]) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int extractHeightFromLabel() {
+        int sum = 0;
+        for (String label : LABELS) {
+            sum += QualityVariantIndex.extractHeightFromLabel(label);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,11 @@
+package android.content;
+
+import java.io.File;
+
+/**
+ * JVM stand-in with the one method HlsPlaylistCache needs. The benchmarks never create one.
+ */
+public abstract class Context {
+
+    public abstract File getCacheDir();
+}
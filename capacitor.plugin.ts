@@ -26,13 +26,149 @@ export interface ShowMediaViewerOptions {
    */
   items: MediaItem[];
   /**
-   * Current media index to show initially (0-based)
+   * Current media index to show initially (0-based, within the whole album)
    */
   currentIndex: number;
+  /**
+   * Album position of `items[0]` when only a window of a large album is passed (Android, default: 0).
+   * Missing items are requested through the `itemsRequested` event.
+   */
+  windowStart?: number;
+  /**
+   * Total number of items in the album (Android, default: `windowStart + items.length`).
+   * Must be at least `windowStart + items.length` and at most 100000.
+   */
+  totalCount?: number;
+  /**
+   * Number of items per `itemsRequested` page (Android, default: 50)
+   */
+  pageSize?: number;
   /**
    * Optional title for the viewer
    */
   title?: string;
+  /**
+   * Preload the neighbouring video in the swipe direction (Android, default: true)
+   */
+  preloadAdjacent?: boolean;
+  /**
+   * How much of the neighbouring video to buffer, in milliseconds (Android, default: 5000)
+   */
+  preloadDurationMs?: number;
+  /**
+   * Upper bound on the neighbouring video's buffer, in bytes (Android, default: 8 MB)
+   */
+  preloadMaxBytes?: number;
+  /**
+   * Number of neighbours on each side whose image or video thumbnail is decoded ahead of time
+   * so swipes never show a blank page (Android, default: 2, 0 disables)
+   */
+  imagePrefetchCount?: number;
+  /**
+   * Minimum time between playbackStateChanged events that only report a new position,
+   * in milliseconds (Android, default: 500). Play/pause, quality and duration changes
+   * are sent right away; unchanged states are never sent. The position is also sampled at
+   * this interval, but never more often than every 100 ms.
+   */
+  stateEventIntervalMs?: number;
+  /**
+   * Size cap for the on-disk video cache in megabytes (Android, default: 256).
+   * Omit to keep the current limit.
+   */
+  cacheSizeMb?: number;
+  /**
+   * Player buffering profile (Android, default: 'default').
+   * 'fast-start' starts playback sooner and buffers less, for short clips and stories;
+   * 'smooth' buffers further ahead and keeps a back buffer, for long streams;
+   * 'low-memory' caps the buffer by size, for budget devices.
+   */
+  bufferingProfile?: 'default' | 'fast-start' | 'smooth' | 'low-memory';
+  /**
+   * Values overriding the chosen buffering profile (Android)
+   */
+  buffering?: BufferingOptions;
+}
+
+export interface BufferingOptions {
+  /**
+   * Keep loading until at least this much media is buffered, in milliseconds
+   */
+  minBufferMs?: number;
+  /**
+   * Stop loading once this much media is buffered, in milliseconds
+   */
+  maxBufferMs?: number;
+  /**
+   * Media needed before playback starts, in milliseconds
+   */
+  bufferForPlaybackMs?: number;
+  /**
+   * Media needed before playback resumes after a stall, in milliseconds
+   */
+  bufferForPlaybackAfterRebufferMs?: number;
+  /**
+   * Already played media kept for seeking back, in milliseconds
+   */
+  backBufferMs?: number;
+  /**
+   * Buffer size cap in bytes (0 derives it from the selected tracks)
+   */
+  targetBufferBytes?: number;
+}
+
+export interface CacheStats {
+  /**
+   * Bytes of video data currently cached on disk
+   */
+  usedBytes: number;
+  /**
+   * Current size cap in bytes
+   */
+  maxBytes: number;
+  /**
+   * Number of cached resources (files, HLS segments)
+   */
+  entryCount: number;
+}
+
+export interface ItemMetrics {
+  /**
+   * Album position of the video
+   */
+  index: number;
+  /**
+   * Video path
+   */
+  path: string;
+  /**
+   * Time from show() (first item) or the swipe settling until the first frame was rendered,
+   * in milliseconds; -1 if no frame was rendered
+   */
+  timeToFirstFrameMs: number;
+  /**
+   * Number of stalls after playback started, not counting seeks
+   */
+  rebufferCount: number;
+  /**
+   * Total time spent stalled, in milliseconds
+   */
+  rebufferDurationMs: number;
+  /**
+   * Video frames dropped by the decoder
+   */
+  droppedFrames: number;
+  /**
+   * Number of changes of the video bitrate being played
+   */
+  bitrateSwitchCount: number;
+  /**
+   * Time from the last setQuality() to a specific quality until the player decoded it, in milliseconds; -1 if none. Switches to "Auto" are not timed
+   */
+  lastQualitySwitchMs: number;
+  /**
+   * Media bytes downloaded (or read from the cache) for the video
+   */
+  bytesLoaded: number;
 }
 
 export interface PlaybackState {
@@ -90,6 +226,49 @@ export interface MediaViewerPlugin {
    */
   getPlaybackState(): Promise<PlaybackState>;
 
+  /**
+   * Provide album items requested through the `itemsRequested` event (Android only)
+   */
+  provideItems(options: { start: number; items: MediaItem[] }): Promise<void>;
+
+  /**
+   * Add items at the end of the list without restarting the viewer (Android and web; not available on iOS)
+   */
+  appendItems(options: { items: MediaItem[] }): Promise<void>;
+
+  /**
+   * Insert items before `index`. The current item keeps playing; if the items land before it,
+   * `mediaIndexChanged` reports its new index. Android and web; not available on iOS.
+   */
+  insertItems(options: { index: number; items: MediaItem[] }): Promise<void>;
+
+  /**
+   * Remove `count` items (default: 1) starting at `index`. Removing the current item shows
+   * the one that takes its place; removing every item closes the viewer. Android and web; not available on iOS.
+   */
+  removeItems(options: { index: number; count?: number }): Promise<void>;
+
+  /**
+   * Replace the item at `index`. The current item is only reloaded if its path or type changed. Android and web; not available on iOS.
+   */
+  updateItem(options: { index: number; item: MediaItem }): Promise<void>;
+
+  /**
+   * Remove all cached video data (Android only)
+   */
+  clearCache(): Promise<void>;
+
+  /**
+   * Get the size and usage of the video cache (Android only)
+   */
+  getCacheStats(): Promise<CacheStats>;
+
+  /**
+   * Get playback metrics for the videos shown since show(), oldest first, ending with the current one.
+   * Still available after the viewer closes, until the next show() (Android only)
+   */
+  getMetrics(): Promise<{ items: ItemMetrics[] }>;
+
   /**
    * Listen for playback state changes
    */
@@ -106,6 +285,23 @@ export interface MediaViewerPlugin {
     listenerFunc: (data: { index: number }) => void
   ): PluginListenerHandle;
 
+  /**
+   * Listen for requests for album items that haven't been provided yet
+   * (when `totalCount` is larger than the window passed to `show()`)
+   */
+  addListener(
+    eventName: 'itemsRequested',
+    listenerFunc: (data: { start: number; count: number }) => void
+  ): PluginListenerHandle;
+
+  /**
+   * Listen for the playback metrics of each video, sent when the viewer moves away from it
+   */
+  addListener(
+    eventName: 'metrics',
+    listenerFunc: (metrics: ItemMetrics) => void
+  ): PluginListenerHandle;
+
   /**
    * Listen for viewer dismissal
    */
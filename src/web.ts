@@ -3,6 +3,9 @@ import type {
   MediaViewerPlugin,
   ShowMediaViewerOptions,
   PlaybackState,
+  CacheStats,
+  ItemMetrics,
+  MediaItem,
 } from '../capacitor.plugin';
 
 export class MediaViewerWeb extends WebPlugin implements MediaViewerPlugin {
@@ -23,7 +26,8 @@ export class MediaViewerWeb extends WebPlugin implements MediaViewerPlugin {
   private lastTouchDistance = 0;
 
   async show(options: ShowMediaViewerOptions): Promise<void> {
-    this.mediaItems = options.items;
+    // A copy, so the item methods below never change the app's own array
+    this.mediaItems = [...options.items];
     this.currentIndex = options.currentIndex;
 
     // Create modal container
@@ -435,5 +439,76 @@ export class MediaViewerWeb extends WebPlugin implements MediaViewerPlugin {
       duration: 0,
     };
   }
-}
 
+  async provideItems(_options: { start: number; items: MediaItem[] }): Promise<void> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async appendItems(options: { items: MediaItem[] }): Promise<void> {
+    this.requireShowing();
+    this.mediaItems = this.mediaItems.concat(options.items);
+  }
+
+  async insertItems(options: { index: number; items: MediaItem[] }): Promise<void> {
+    this.requireShowing();
+    if (options.index < 0 || options.index > this.mediaItems.length) {
+      throw new Error('Index out of range: ' + options.index);
+    }
+    this.mediaItems.splice(options.index, 0, ...options.items);
+    if (options.index <= this.currentIndex) {
+      this.currentIndex += options.items.length;
+      this.notifyListeners('mediaIndexChanged', { index: this.currentIndex });
+    }
+  }
+
+  async removeItems(options: { index: number; count?: number }): Promise<void> {
+    this.requireShowing();
+    const count = options.count ?? 1;
+    if (options.index < 0 || count < 0 || options.index + count > this.mediaItems.length) {
+      throw new Error('Range out of bounds: ' + options.index + ' + ' + count);
+    }
+    this.mediaItems.splice(options.index, count);
+    if (this.mediaItems.length === 0) {
+      await this.dismiss();
+      return;
+    }
+    if (this.currentIndex >= options.index + count) {
+      this.currentIndex -= count;
+      this.notifyListeners('mediaIndexChanged', { index: this.currentIndex });
+    } else if (this.currentIndex >= options.index) {
+      this.currentIndex = Math.min(options.index, this.mediaItems.length - 1);
+      this.renderCurrentMedia();
+      this.notifyListeners('mediaIndexChanged', { index: this.currentIndex });
+    }
+  }
+
+  async updateItem(options: { index: number; item: MediaItem }): Promise<void> {
+    this.requireShowing();
+    if (options.index < 0 || options.index >= this.mediaItems.length) {
+      throw new Error('Index out of range: ' + options.index);
+    }
+    const previous = this.mediaItems[options.index];
+    this.mediaItems[options.index] = options.item;
+    if (options.index === this.currentIndex && (previous.path !== options.item.path || previous.type !== options.item.type)) {
+      this.renderCurrentMedia();
+    }
+  }
+
+  private requireShowing(): void {
+    if (!this.modalElement) {
+      throw new Error('Media viewer is not showing');
+    }
+  }
+
+  async clearCache(): Promise<void> {
+    // The browser manages its own HTTP cache
+  }
+
+  async getCacheStats(): Promise<CacheStats> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+
+  async getMetrics(): Promise<{ items: ItemMetrics[] }> {
+    throw this.unimplemented('Not implemented on web.');
+  }
+}